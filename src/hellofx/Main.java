@@ -1,9 +1,27 @@
 package hellofx;
 
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.InetAddress;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
 
+import hellofx.collab.CollabClient;
+import hellofx.collab.CollabServer;
+import hellofx.metrics.Metrics;
+import hellofx.models.ColorNonogramModel;
+import hellofx.models.MappedNonogramModel;
+import hellofx.models.NonogramFormat;
+import hellofx.models.NonogramMakerModel;
+import hellofx.presenters.ColorNonogramPresenter;
+import hellofx.presenters.LargePuzzlePresenter;
 import hellofx.presenters.NonogramMakerPresenter;
 import javafx.application.Application;
+import javafx.application.Platform;
 import javafx.scene.Scene;
 import javafx.scene.layout.Pane;
 import javafx.stage.Stage;
@@ -12,12 +30,48 @@ import javafx.stage.Stage;
  * The main class of the application.
  * This class extends the Application class and is responsible for launching the
  * application.
+ * It is launched either with the number of rows, the number of columns and the
+ * cell size of a blank puzzle, or with the path of a puzzle file and an
+ * optional cell size. Multi-color puzzle files are opened in the color editor,
+ * and puzzles too large for a grid of buttons in the memory-mapped viewport
+ * editor.
+ * With --serve=PORT the puzzle is shared with other editors through a local
+ * collaboration server; with --join=HOST:PORT and an optional cell size the
+ * puzzle shared by another editor is edited instead.
  */
 public class Main extends Application {
 
     private static int IDX_NUM_ROWS = 0;
     private static int IDX_NUM_COLS = 1;
     private static int IDX_CELL_SIZE = 2;
+    private static int IDX_PUZZLE_FILE = 0;
+    private static int IDX_PUZZLE_CELL_SIZE = 1;
+    private static int DEFAULT_CELL_SIZE = 20;
+    private static int IDX_JOIN_CELL_SIZE = 0;
+    private static String METRICS_FILE_PROPERTY = "hellofx.metricsFile";
+    private static String SERVE_PARAMETER = "serve";
+    private static String JOIN_PARAMETER = "join";
+
+    private static CompletableFuture<NonogramMakerModel> pendingModel;
+    private static CompletableFuture<ColorNonogramModel> pendingColorModel;
+    private static CompletableFuture<MappedNonogramModel> pendingMappedModel;
+    private CollabServer collabServer;
+    private CollabClient collabClient;
+
+    /**
+     * This method is called before the application is started.
+     * If a puzzle file was given and its parsing has not been started by the
+     * main method, it is started here, in the background.
+     */
+    @Override
+    public void init() {
+        List<String> arg = getParameters().getUnnamed();
+        boolean parsing = pendingModel != null || pendingColorModel != null || pendingMappedModel != null;
+        if (!parsing && !getParameters().getNamed().containsKey(JOIN_PARAMETER) && !arg.isEmpty()
+                && isPuzzleFile(arg.get(IDX_PUZZLE_FILE))) {
+            startParsing(arg.get(IDX_PUZZLE_FILE));
+        }
+    }
 
     /**
      * This method is called when the application is launched.
@@ -29,11 +83,46 @@ public class Main extends Application {
     @Override
     public void start(Stage primaryStage) throws Exception {
         List<String> arg = getParameters().getUnnamed();
-        int cellSize = Integer.parseInt(arg.get(IDX_CELL_SIZE));
-        int numRows = Integer.parseInt(arg.get(IDX_NUM_ROWS));
-        int numCols = Integer.parseInt(arg.get(IDX_NUM_COLS));
-
-        NonogramMakerPresenter presenter = new NonogramMakerPresenter(numRows, numCols, cellSize);
+        Map<String, String> named = getParameters().getNamed();
+        if (pendingColorModel != null) {
+            ColorNonogramPresenter presenter = new ColorNonogramPresenter(awaitModel(pendingColorModel),
+                    getPuzzleCellSize(arg));
+            presenter.show(primaryStage, new File(arg.get(IDX_PUZZLE_FILE)).getName());
+            return;
+        }
+        if (pendingMappedModel != null) {
+            LargePuzzlePresenter presenter = new LargePuzzlePresenter(awaitModel(pendingMappedModel),
+                    getPuzzleCellSize(arg));
+            presenter.show(primaryStage, new File(arg.get(IDX_PUZZLE_FILE)).getName());
+            return;
+        }
+        NonogramMakerPresenter presenter;
+        if (named.containsKey(JOIN_PARAMETER)) {
+            int cellSize = DEFAULT_CELL_SIZE;
+            if (arg.size() > IDX_JOIN_CELL_SIZE) {
+                cellSize = Integer.parseInt(arg.get(IDX_JOIN_CELL_SIZE));
+            }
+            String address = named.get(JOIN_PARAMETER);
+            int separator = address.lastIndexOf(':');
+            collabClient = new CollabClient(address.substring(0, separator),
+                    Integer.parseInt(address.substring(separator + 1)), Platform::runLater);
+            presenter = new NonogramMakerPresenter(collabClient.getModel(), cellSize);
+            presenter.collaborate(collabClient);
+        } else if (pendingModel != null) {
+            presenter = new NonogramMakerPresenter(awaitModel(pendingModel), getPuzzleCellSize(arg));
+        } else {
+            int cellSize = Integer.parseInt(arg.get(IDX_CELL_SIZE));
+            int numRows = Integer.parseInt(arg.get(IDX_NUM_ROWS));
+            int numCols = Integer.parseInt(arg.get(IDX_NUM_COLS));
+            presenter = new NonogramMakerPresenter(numRows, numCols, cellSize);
+        }
+        if (named.containsKey(SERVE_PARAMETER) && !named.containsKey(JOIN_PARAMETER)) {
+            // Share the puzzle, and edit it through the server like every other editor
+            collabServer = new CollabServer(presenter.getModel(), Integer.parseInt(named.get(SERVE_PARAMETER)));
+            collabClient = new CollabClient(InetAddress.getLoopbackAddress().getHostAddress(), collabServer.getPort(),
+                    Platform::runLater);
+            presenter.collaborate(collabClient);
+        }
         Pane pane = presenter.getPane();
         Scene scene = new Scene(pane);
 
@@ -45,6 +134,28 @@ public class Main extends Application {
         primaryStage.show();
     }
 
+    /**
+     * This method is called when the application exits.
+     * Any collaboration session is closed. If the hellofx.metricsFile system
+     * property is set, a JSON snapshot of the collected metrics is written to
+     * that file.
+     *
+     * @throws Exception If an exception occurs while writing the metrics.
+     */
+    @Override
+    public void stop() throws Exception {
+        if (collabClient != null) {
+            collabClient.close();
+        }
+        if (collabServer != null) {
+            collabServer.close();
+        }
+        String metricsFile = System.getProperty(METRICS_FILE_PROPERTY);
+        if (metricsFile != null) {
+            Metrics.writeJson(metricsFile);
+        }
+    }
+
     /**
      * The main method of the HelloFX application.
      * It launches the JavaFX application by calling the launch method.
@@ -52,6 +163,115 @@ public class Main extends Application {
      * @param args The command line arguments passed to the application.
      */
     public static void main(String[] args) {
+        // Parse the puzzle while the JavaFX toolkit starts up
+        List<String> unnamed = new ArrayList<String>();
+        boolean joining = false;
+        for (String arg : args) {
+            if (arg.startsWith("--")) {
+                joining |= arg.startsWith("--" + JOIN_PARAMETER + "=");
+            } else {
+                unnamed.add(arg);
+            }
+        }
+        if (!joining && !unnamed.isEmpty() && isPuzzleFile(unnamed.get(IDX_PUZZLE_FILE))) {
+            startParsing(unnamed.get(IDX_PUZZLE_FILE));
+        }
         launch(args);
     }
+
+    /**
+     * Returns the cell size given after the puzzle file on the command line.
+     *
+     * @param arg The unnamed command line arguments.
+     * @return The cell size, or the default if none was given.
+     */
+    private static int getPuzzleCellSize(List<String> arg) {
+        if (arg.size() > IDX_PUZZLE_CELL_SIZE) {
+            return Integer.parseInt(arg.get(IDX_PUZZLE_CELL_SIZE));
+        }
+        return DEFAULT_CELL_SIZE;
+    }
+
+    /**
+     * Returns whether a command line argument names a puzzle file rather than a
+     * number of rows.
+     *
+     * @param arg The first command line argument.
+     * @return true if the argument is not a number.
+     */
+    private static boolean isPuzzleFile(String arg) {
+        try {
+            Integer.parseInt(arg);
+            return false;
+        } catch (NumberFormatException e) {
+            return true;
+        }
+    }
+
+    /**
+     * Starts parsing a puzzle file on a background thread. Its first line is read
+     * once to choose how: as a color puzzle, as a memory-mapped working copy if
+     * it has more than NonogramMakerPresenter.LARGE_PUZZLE_CELLS cells, the same
+     * as when it is opened from the File menu, or as a regular puzzle.
+     *
+     * @param filename The name of the puzzle file.
+     */
+    private static void startParsing(String filename) {
+        String header;
+        try {
+            header = NonogramFormat.readHeader(new File(filename));
+        } catch (IOException e) {
+            // Let the regular parser report the error
+            header = null;
+        }
+        int[] size = NonogramFormat.parseDimensions(header);
+        if (ColorNonogramModel.isColorHeader(header)) {
+            pendingColorModel = CompletableFuture.supplyAsync(() -> {
+                try {
+                    return new ColorNonogramModel(new File(filename));
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } else if (size != null && (long) size[0] * size[1] > NonogramMakerPresenter.LARGE_PUZZLE_CELLS) {
+            pendingMappedModel = CompletableFuture.supplyAsync(() -> {
+                try {
+                    return MappedNonogramModel.workingCopyOf(new File(filename));
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } else {
+            pendingModel = CompletableFuture.supplyAsync(() -> {
+                try {
+                    return new NonogramMakerModel(filename);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        }
+    }
+
+    /**
+     * Waits for the puzzle file given on the command line to be parsed.
+     *
+     * @param <T>     The type of the model.
+     * @param pending The future model.
+     * @return The parsed model.
+     * @throws Exception If the puzzle file could not be read or parsed.
+     */
+    private static <T> T awaitModel(CompletableFuture<T> pending) throws Exception {
+        try {
+            return pending.get();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof UncheckedIOException) {
+                throw ((UncheckedIOException) cause).getCause();
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw (Exception) cause;
+        }
+    }
 }
@@ -0,0 +1,160 @@
+package hellofx.collab;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.Socket;
+import java.util.concurrent.Executor;
+
+import hellofx.models.NonogramMakerModel;
+
+/**
+ * The CollabClient class connects an editor to a collaboration server. It
+ * keeps a local copy of the shared puzzle: edits are applied locally at once
+ * and sent to the server, and the deltas broadcast by the server are applied
+ * as they arrive. Since the server echoes every edit back, all clients end up
+ * with the canonical value of every cell.
+ *
+ * <p>Deltas are applied on the executor given to the constructor, so an editor
+ * can keep its model confined to the JavaFX application thread by passing
+ * Platform::runLater.
+ */
+public class CollabClient implements Closeable {
+
+    /**
+     * The Listener interface is notified after a delta from the server has been
+     * applied to the local model.
+     */
+    public interface Listener {
+        /**
+         * Called on the client's executor after cells changed.
+         *
+         * @param indices The row-major indices of the cells in the delta.
+         */
+        void cellsChanged(int[] indices);
+    }
+
+    private Socket socket;
+    private DataOutputStream out;
+    private NonogramMakerModel model;
+    private Executor executor;
+    private volatile Listener listener;
+
+    /**
+     * Connects to a collaboration server and waits for the snapshot of the shared
+     * puzzle.
+     *
+     * @param host     The host of the server.
+     * @param port     The port of the server.
+     * @param executor The executor on which deltas are applied.
+     * @throws IOException if the connection fails.
+     */
+    public CollabClient(String host, int port, Executor executor) throws IOException {
+        this.executor = executor;
+        socket = new Socket(host, port);
+        socket.setTcpNoDelay(true);
+        out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+        DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+        if (in.readByte() != CollabProtocol.SNAPSHOT) {
+            socket.close();
+            throw new IOException("Expected a snapshot");
+        }
+        model = CollabProtocol.readSnapshot(in);
+
+        Thread reader = new Thread(() -> readDeltas(in), "collab-client");
+        reader.setDaemon(true);
+        reader.start();
+    }
+
+    /**
+     * Returns the local copy of the shared puzzle. It should only be used on the
+     * client's executor.
+     *
+     * @return The local model.
+     */
+    public NonogramMakerModel getModel() {
+        return model;
+    }
+
+    /**
+     * Sets the listener notified after each delta is applied.
+     *
+     * @param listener The listener, or null.
+     */
+    public void setListener(Listener listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * Sets a cell in the local model and sends the edit to the server.
+     *
+     * @param rowIdx The index of the row.
+     * @param colIdx The index of the column.
+     * @param value  The new value for the cell.
+     * @throws IOException if the edit cannot be sent.
+     */
+    public void setCell(int rowIdx, int colIdx, boolean value) throws IOException {
+        synchronized (model) {
+            model.setCell(rowIdx, colIdx, value);
+        }
+        synchronized (out) {
+            out.writeByte(CollabProtocol.EDIT);
+            out.writeInt(rowIdx * model.getNumCols() + colIdx);
+            out.writeBoolean(value);
+            out.flush();
+        }
+    }
+
+    /**
+     * Reads deltas until the connection is closed. Runs on its own thread.
+     *
+     * @param in The stream from the server.
+     */
+    private void readDeltas(DataInputStream in) {
+        try {
+            while (true) {
+                byte type = in.readByte();
+                if (type != CollabProtocol.DELTA) {
+                    throw new IOException("Unexpected message " + type);
+                }
+                CollabProtocol.Delta delta = CollabProtocol.readDelta(in);
+                executor.execute(() -> apply(delta));
+            }
+        } catch (IOException e) {
+            close();
+        }
+    }
+
+    /**
+     * Applies a delta to the local model and notifies the listener.
+     *
+     * @param delta The changed cells.
+     */
+    private void apply(CollabProtocol.Delta delta) {
+        int numCols = model.getNumCols();
+        synchronized (model) {
+            for (int i = 0; i < delta.indices.length; i++) {
+                model.setCell(delta.indices[i] / numCols, delta.indices[i] % numCols, delta.values[i]);
+            }
+        }
+        Listener current = listener;
+        if (current != null) {
+            current.cellsChanged(delta.indices);
+        }
+    }
+
+    /**
+     * Disconnects from the server.
+     */
+    @Override
+    public void close() {
+        try {
+            socket.close();
+        } catch (IOException e) {
+            // Already closed
+        }
+    }
+}
@@ -0,0 +1,158 @@
+package hellofx.collab;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+import hellofx.models.NonogramMakerModel;
+
+/**
+ * The CollabProtocol class holds the message format shared by the
+ * collaboration server and its clients. Every message starts with a type byte.
+ * The server sends one snapshot of the whole grid when a client joins, then
+ * batched deltas. A delta lists the indices of the changed cells followed by
+ * their values packed eight to a byte. Clients send single cell edits.
+ */
+final class CollabProtocol {
+    /** Server to client: rows, columns, then each row packed into longs. */
+    static final byte SNAPSHOT = 1;
+    /** Server to client: a count, the cell indices, then the packed values. */
+    static final byte DELTA = 2;
+    /** Client to server: a cell index and its new value. */
+    static final byte EDIT = 3;
+
+    /**
+     * CollabProtocol only has static members.
+     */
+    private CollabProtocol() {
+    }
+
+    /**
+     * Encodes a snapshot of a grid.
+     *
+     * @param model The grid.
+     * @return The encoded message.
+     */
+    static byte[] encodeSnapshot(NonogramMakerModel model) {
+        int rowWords = model.getRowWords();
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(
+                9 + model.getNumRows() * rowWords * Long.BYTES);
+        DataOutputStream out = new DataOutputStream(bytes);
+        try {
+            out.writeByte(SNAPSHOT);
+            out.writeInt(model.getNumRows());
+            out.writeInt(model.getNumCols());
+            long[] words = new long[rowWords];
+            for (int r = 0; r < model.getNumRows(); r++) {
+                model.readRow(r, words);
+                for (long word : words) {
+                    out.writeLong(word);
+                }
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Reads the body of a snapshot, after its type byte.
+     *
+     * @param in The stream to read from.
+     * @return The grid.
+     * @throws IOException if an I/O error occurs while reading.
+     */
+    static NonogramMakerModel readSnapshot(DataInputStream in) throws IOException {
+        int numRows = in.readInt();
+        int numCols = in.readInt();
+        NonogramMakerModel model = new NonogramMakerModel(numRows, numCols);
+        int rowWords = model.getRowWords();
+        for (int r = 0; r < numRows; r++) {
+            for (int w = 0; w < rowWords; w++) {
+                long word = in.readLong();
+                for (; word != 0; word &= word - 1) {
+                    model.setCell(r, w * Long.SIZE + Long.numberOfTrailingZeros(word), true);
+                }
+            }
+        }
+        return model;
+    }
+
+    /**
+     * Encodes a delta of changed cells.
+     *
+     * @param indices The row-major indices of the changed cells.
+     * @param values  The new values of the cells.
+     * @param count   The number of changed cells.
+     * @return The encoded message.
+     */
+    static byte[] encodeDelta(int[] indices, boolean[] values, int count) {
+        byte[] message = new byte[5 + count * Integer.BYTES + (count + 7) / 8];
+        message[0] = DELTA;
+        putInt(message, 1, count);
+        int offset = 5;
+        for (int i = 0; i < count; i++, offset += Integer.BYTES) {
+            putInt(message, offset, indices[i]);
+        }
+        for (int i = 0; i < count; i++) {
+            if (values[i]) {
+                message[offset + i / 8] |= (byte) (1 << (i % 8));
+            }
+        }
+        return message;
+    }
+
+    /**
+     * Reads the body of a delta, after its type byte.
+     *
+     * @param in The stream to read from.
+     * @return The changed cells.
+     * @throws IOException if an I/O error occurs while reading.
+     */
+    static Delta readDelta(DataInputStream in) throws IOException {
+        int count = in.readInt();
+        Delta delta = new Delta(count);
+        for (int i = 0; i < count; i++) {
+            delta.indices[i] = in.readInt();
+        }
+        byte[] bits = new byte[(count + 7) / 8];
+        in.readFully(bits);
+        for (int i = 0; i < count; i++) {
+            delta.values[i] = (bits[i / 8] >>> (i % 8) & 1) != 0;
+        }
+        return delta;
+    }
+
+    /**
+     * The Delta class holds the cells of a decoded delta message.
+     */
+    static final class Delta {
+        final int[] indices;
+        final boolean[] values;
+
+        /**
+         * Constructs an empty Delta for the specified number of cells.
+         *
+         * @param count The number of changed cells.
+         */
+        Delta(int count) {
+            indices = new int[count];
+            values = new boolean[count];
+        }
+    }
+
+    /**
+     * Writes a big-endian int into an array.
+     *
+     * @param array  The array.
+     * @param offset The position of the first byte.
+     * @param value  The value.
+     */
+    private static void putInt(byte[] array, int offset, int value) {
+        array[offset] = (byte) (value >>> 24);
+        array[offset + 1] = (byte) (value >>> 16);
+        array[offset + 2] = (byte) (value >>> 8);
+        array[offset + 3] = (byte) value;
+    }
+}
@@ -0,0 +1,289 @@
+package hellofx.collab;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import hellofx.metrics.Metrics;
+import hellofx.models.NonogramMakerModel;
+
+/**
+ * The CollabServer class shares one puzzle between several editors over a
+ * local TCP socket. The server owns the canonical model. Edits from clients
+ * are applied to it right away and the edited cells are marked dirty; once per
+ * tick the dirty cells are sent to every client as one delta, so a cell edited
+ * many times within a tick is sent once, with its latest value. Each client
+ * has its own outgoing queue and writer thread, so a slow client never holds
+ * up the others.
+ */
+public class CollabServer implements Closeable {
+    public static final long TICK_MILLIS = 16;
+    /** Queued to a connection to stop its writer thread. */
+    private static final byte[] END = new byte[0];
+
+    private NonogramMakerModel model;
+    private ServerSocket serverSocket;
+    private ScheduledExecutorService ticker;
+    private List<Connection> connections = new ArrayList<Connection>();
+    private BitSet dirty = new BitSet();
+    private volatile boolean closed;
+
+    /**
+     * Starts a server for the specified model on the loopback interface.
+     *
+     * @param model The puzzle to share; the server keeps its own copy.
+     * @param port  The port to listen on, or 0 for any free port.
+     * @throws IOException if the socket cannot be opened.
+     */
+    public CollabServer(NonogramMakerModel model, int port) throws IOException {
+        this.model = new NonogramMakerModel(model);
+        serverSocket = new ServerSocket(port, 50, InetAddress.getLoopbackAddress());
+
+        Thread acceptor = new Thread(this::acceptClients, "collab-accept");
+        acceptor.setDaemon(true);
+        acceptor.start();
+
+        ticker = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "collab-tick");
+            thread.setDaemon(true);
+            return thread;
+        });
+        ticker.scheduleAtFixedRate(this::broadcast, TICK_MILLIS, TICK_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Returns the port the server listens on.
+     *
+     * @return The port.
+     */
+    public int getPort() {
+        return serverSocket.getLocalPort();
+    }
+
+    /**
+     * Returns a copy of the canonical model.
+     *
+     * @return A copy of the shared puzzle.
+     */
+    public NonogramMakerModel getModel() {
+        synchronized (model) {
+            return new NonogramMakerModel(model);
+        }
+    }
+
+    /**
+     * Returns the number of connected clients.
+     *
+     * @return The number of clients.
+     */
+    public int getClientCount() {
+        synchronized (model) {
+            return connections.size();
+        }
+    }
+
+    /**
+     * Accepts clients until the server is closed. Runs on its own thread.
+     */
+    private void acceptClients() {
+        while (!closed) {
+            try {
+                Socket socket = serverSocket.accept();
+                socket.setTcpNoDelay(true);
+                Connection connection = new Connection(socket);
+                synchronized (model) {
+                    // Queued under the lock so no delta can overtake the snapshot
+                    connection.send(CollabProtocol.encodeSnapshot(model));
+                    connections.add(connection);
+                }
+                connection.start();
+            } catch (IOException e) {
+                // The server socket was closed, or a client failed to connect
+            }
+        }
+    }
+
+    /**
+     * Applies an edit from a client to the canonical model.
+     *
+     * @param index The row-major index of the cell.
+     * @param value The new value of the cell.
+     */
+    private void applyEdit(int index, boolean value) {
+        synchronized (model) {
+            if (index < 0 || index >= model.getNumRows() * model.getNumCols()) {
+                return;
+            }
+            model.setCell(index / model.getNumCols(), index % model.getNumCols(), value);
+            dirty.set(index);
+        }
+        Metrics.counter("collab.edits").increment();
+    }
+
+    /**
+     * Sends the cells that changed since the last tick to every client as one
+     * delta. Runs on the tick thread.
+     */
+    private void broadcast() {
+        synchronized (model) {
+            int count = dirty.cardinality();
+            if (count == 0) {
+                return;
+            }
+            int[] indices = new int[count];
+            boolean[] values = new boolean[count];
+            int i = 0;
+            for (int index = dirty.nextSetBit(0); index >= 0; index = dirty.nextSetBit(index + 1)) {
+                indices[i] = index;
+                values[i] = model.getCell(index / model.getNumCols(), index % model.getNumCols());
+                i++;
+            }
+            dirty.clear();
+            byte[] message = CollabProtocol.encodeDelta(indices, values, count);
+            for (Connection connection : connections) {
+                connection.send(message);
+            }
+            Metrics.histogram("collab.delta.cells").record(count);
+        }
+    }
+
+    /**
+     * Removes a client after its connection failed or was closed.
+     *
+     * @param connection The connection of the client.
+     */
+    private void remove(Connection connection) {
+        synchronized (model) {
+            connections.remove(connection);
+        }
+        connection.close();
+    }
+
+    /**
+     * Stops accepting clients and disconnects every client.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        ticker.shutdownNow();
+        try {
+            serverSocket.close();
+        } catch (IOException e) {
+            // Nothing left to release
+        }
+        List<Connection> remaining;
+        synchronized (model) {
+            remaining = new ArrayList<Connection>(connections);
+            connections.clear();
+        }
+        for (Connection connection : remaining) {
+            connection.close();
+        }
+    }
+
+    /**
+     * The Connection class represents one client: a thread reading its edits and
+     * a thread writing the queued messages to it.
+     */
+    private class Connection {
+        private Socket socket;
+        private BlockingQueue<byte[]> outbox = new LinkedBlockingQueue<byte[]>();
+
+        /**
+         * Constructs a Connection for an accepted socket.
+         *
+         * @param socket The socket of the client.
+         */
+        Connection(Socket socket) {
+            this.socket = socket;
+        }
+
+        /**
+         * Starts the reader and writer threads of the connection.
+         */
+        void start() {
+            Thread reader = new Thread(this::readEdits, "collab-reader-" + socket.getPort());
+            reader.setDaemon(true);
+            reader.start();
+            Thread writer = new Thread(this::writeMessages, "collab-writer-" + socket.getPort());
+            writer.setDaemon(true);
+            writer.start();
+        }
+
+        /**
+         * Queues a message for the client.
+         *
+         * @param message The encoded message.
+         */
+        void send(byte[] message) {
+            outbox.add(message);
+        }
+
+        /**
+         * Reads edits from the client until it disconnects.
+         */
+        private void readEdits() {
+            try {
+                DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+                while (true) {
+                    byte type = in.readByte();
+                    if (type != CollabProtocol.EDIT) {
+                        throw new IOException("Unexpected message " + type);
+                    }
+                    int index = in.readInt();
+                    applyEdit(index, in.readBoolean());
+                }
+            } catch (IOException e) {
+                remove(this);
+            }
+        }
+
+        /**
+         * Writes queued messages to the client, flushing once per batch of
+         * messages that are ready.
+         */
+        private void writeMessages() {
+            try {
+                OutputStream out = new BufferedOutputStream(socket.getOutputStream());
+                while (true) {
+                    for (byte[] message = outbox.take(); message != null; message = outbox.poll()) {
+                        if (message == END) {
+                            return;
+                        }
+                        out.write(message);
+                    }
+                    out.flush();
+                }
+            } catch (IOException | InterruptedException e) {
+                remove(this);
+            }
+        }
+
+        /**
+         * Closes the socket, which ends the reader thread, and tells the writer
+         * thread to stop.
+         */
+        void close() {
+            outbox.add(END);
+            try {
+                socket.close();
+            } catch (IOException e) {
+                // Already closed
+            }
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package hellofx.handlers;
+
+import java.io.File;
+import java.io.IOException;
+
+import hellofx.interfaces.Diffable;
+import javafx.event.ActionEvent;
+import javafx.event.EventHandler;
+import javafx.stage.FileChooser;
+import javafx.stage.Window;
+
+/**
+ * The CompareHandler class is responsible for handling the compare action. It
+ * lets the user pick a nonogram file and hands it to a Diffable object.
+ */
+public class CompareHandler extends AbstractBaseHandler implements EventHandler<ActionEvent> {
+    private Diffable differ;
+
+    /**
+     * Constructs a CompareHandler with the specified window, file chooser and
+     * differ.
+     *
+     * @param window      the window in which the file chooser dialog will be
+     *                    displayed
+     * @param fileChooser the file chooser used to select the file to compare with
+     * @param differ      the Diffable object used to compare with the file
+     */
+    public CompareHandler(Window window, FileChooser fileChooser, Diffable differ) {
+        super(window, fileChooser);
+        this.differ = differ;
+    }
+
+    /**
+     * Handles the compare action triggered by an ActionEvent.
+     * Displays a file chooser dialog to select the file to compare with.
+     *
+     * @param event the ActionEvent triggered by the compare action
+     */
+    @Override
+    public void handle(ActionEvent event) {
+        File c = fileChooser.showOpenDialog(window);
+        try {
+            if (c != null) {
+                differ.compare(c);
+            }
+        } catch (IOException e) {
+            // Handle the exception if comparing fails
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package hellofx.handlers;
+
+import java.io.File;
+import java.io.IOException;
+
+import hellofx.interfaces.Exportable;
+import javafx.event.ActionEvent;
+import javafx.event.EventHandler;
+import javafx.stage.FileChooser;
+import javafx.stage.Window;
+
+/**
+ * The ExportHandler class is responsible for handling the export action in a
+ * JavaFX application.
+ */
+public class ExportHandler extends AbstractBaseHandler implements EventHandler<ActionEvent> {
+    private Exportable exporter;
+
+    /**
+     * Constructs an ExportHandler object with the specified window, fileChooser,
+     * and exporter.
+     *
+     * @param window      the window in which the file chooser dialog will be
+     *                    displayed
+     * @param fileChooser the file chooser used to select the file to export to
+     * @param exporter    the Exportable object used to export the image
+     */
+    public ExportHandler(Window window, FileChooser fileChooser, Exportable exporter) {
+        super(window, fileChooser);
+        this.exporter = exporter;
+    }
+
+    /**
+     * Handles the export action triggered by an ActionEvent.
+     * Displays a file chooser dialog to select the file to export to.
+     *
+     * @param event the ActionEvent triggered by the export action
+     */
+    @Override
+    public void handle(ActionEvent event) {
+        File e = fileChooser.showSaveDialog(window);
+        try {
+            if (e != null) {
+                exporter.export(e);
+            }
+        } catch (IOException ex) {
+            // Handle the exception if exporting fails
+        }
+    }
+}
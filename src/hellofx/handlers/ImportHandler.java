@@ -0,0 +1,50 @@
+package hellofx.handlers;
+
+import java.io.File;
+import java.io.IOException;
+
+import hellofx.interfaces.Importable;
+import javafx.event.ActionEvent;
+import javafx.event.EventHandler;
+import javafx.stage.FileChooser;
+import javafx.stage.Window;
+
+/**
+ * The ImportHandler class is responsible for handling the import action. It
+ * lets the user pick an image file and hands it to an Importable object.
+ */
+public class ImportHandler extends AbstractBaseHandler implements EventHandler<ActionEvent> {
+    private Importable importer;
+
+    /**
+     * Constructs an ImportHandler with the specified window, file chooser and
+     * importer.
+     *
+     * @param window      the window in which the file chooser dialog will be
+     *                    displayed
+     * @param fileChooser the file chooser used to select the image to import
+     * @param importer    the Importable object used to import the image
+     */
+    public ImportHandler(Window window, FileChooser fileChooser, Importable importer) {
+        super(window, fileChooser);
+        this.importer = importer;
+    }
+
+    /**
+     * Handles the import action triggered by an ActionEvent.
+     * Displays a file chooser dialog to select the image to import.
+     *
+     * @param event the ActionEvent triggered by the import action
+     */
+    @Override
+    public void handle(ActionEvent event) {
+        File i = fileChooser.showOpenDialog(window);
+        try {
+            if (i != null) {
+                importer.importImage(i);
+            }
+        } catch (IOException e) {
+            // Handle the exception if importing fails
+        }
+    }
+}
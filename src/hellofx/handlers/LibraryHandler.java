@@ -0,0 +1,48 @@
+package hellofx.handlers;
+
+import java.io.File;
+
+import hellofx.interfaces.Browsable;
+import javafx.event.ActionEvent;
+import javafx.event.EventHandler;
+import javafx.stage.DirectoryChooser;
+import javafx.stage.Window;
+
+/**
+ * The LibraryHandler class is responsible for handling the library action. It
+ * lets the user pick a puzzle directory and hands it to a Browsable object.
+ */
+public class LibraryHandler implements EventHandler<ActionEvent> {
+    private Window window;
+    private DirectoryChooser directoryChooser;
+    private Browsable browser;
+
+    /**
+     * Constructs a LibraryHandler with the specified window, directory chooser
+     * and browser.
+     *
+     * @param window           the window in which the directory chooser dialog
+     *                         will be displayed
+     * @param directoryChooser the directory chooser used to select the library
+     * @param browser          the Browsable object used to browse the library
+     */
+    public LibraryHandler(Window window, DirectoryChooser directoryChooser, Browsable browser) {
+        this.window = window;
+        this.directoryChooser = directoryChooser;
+        this.browser = browser;
+    }
+
+    /**
+     * Handles the library action triggered by an ActionEvent.
+     * Displays a directory chooser dialog to select the library directory.
+     *
+     * @param event the ActionEvent triggered by the library action
+     */
+    @Override
+    public void handle(ActionEvent event) {
+        File directory = directoryChooser.showDialog(window);
+        if (directory != null) {
+            browser.browse(directory);
+        }
+    }
+}
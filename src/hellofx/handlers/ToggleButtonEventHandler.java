@@ -1,5 +1,8 @@
 package hellofx.handlers;
 
+import java.io.IOException;
+
+import hellofx.collab.CollabClient;
 import hellofx.models.NonogramMakerModel;
 import javafx.event.ActionEvent;
 import javafx.event.EventHandler;
@@ -13,6 +16,7 @@ public class ToggleButtonEventHandler implements EventHandler<ActionEvent> {
     private NonogramMakerModel model;
     private int rowIdx;
     private int colIdx;
+    private CollabClient client;
 
     /**
      * Constructs a ToggleButtonEventHandler with the specified NonogramMakerModel,
@@ -28,12 +32,34 @@ public class ToggleButtonEventHandler implements EventHandler<ActionEvent> {
         this.model = model;
     }
 
+    /**
+     * Constructs a ToggleButtonEventHandler that sends its edits through a
+     * collaboration client, which updates the client's shared model.
+     * 
+     * @param client The CollabClient sharing the edited model.
+     * @param rowIdx The row index of the toggle button.
+     * @param colIdx The column index of the toggle button.
+     */
+    public ToggleButtonEventHandler(CollabClient client, int rowIdx, int colIdx) {
+        this(client.getModel(), rowIdx, colIdx);
+        this.client = client;
+    }
+
     /**
      * Handles the action event triggered by the toggle button.
      * 
      * @param event Action event.
      */
     public void handle(ActionEvent event) {
-        model.setCell(rowIdx, colIdx, ((ToggleButton) event.getSource()).isSelected());
+        boolean selected = ((ToggleButton) event.getSource()).isSelected();
+        if (client == null) {
+            model.setCell(rowIdx, colIdx, selected);
+            return;
+        }
+        try {
+            client.setCell(rowIdx, colIdx, selected);
+        } catch (IOException e) {
+            // The edit stays local if the server is gone
+        }
     }
 }
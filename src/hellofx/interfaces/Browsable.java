@@ -0,0 +1,17 @@
+package hellofx.interfaces;
+
+import java.io.File;
+
+/**
+ * The Browsable interface represents an object that can browse a directory of
+ * puzzles. Classes that implement this interface must provide an
+ * implementation for the browse method.
+ */
+public interface Browsable {
+    /**
+     * Browses the puzzles in the specified directory.
+     *
+     * @param directory the directory to browse
+     */
+    void browse(File directory);
+}
@@ -0,0 +1,19 @@
+package hellofx.interfaces;
+
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * The Diffable interface represents an object that can be compared with a
+ * nonogram file. Classes that implement this interface must provide an
+ * implementation for the compare method.
+ */
+public interface Diffable {
+    /**
+     * Compares the object with the nonogram in the specified file.
+     *
+     * @param file the nonogram file to compare with
+     * @throws IOException if an I/O error occurs while reading the file
+     */
+    void compare(File file) throws IOException;
+}
@@ -0,0 +1,19 @@
+package hellofx.interfaces;
+
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * The Exportable interface represents an object that can be exported to an
+ * image file. Implementing classes must provide a way to export the object to
+ * a specified file.
+ */
+public interface Exportable {
+    /**
+     * Exports the object to the specified image file.
+     *
+     * @param file the file to export the object to
+     * @throws IOException if an I/O error occurs while exporting the object
+     */
+    void export(File file) throws IOException;
+}
@@ -0,0 +1,19 @@
+package hellofx.interfaces;
+
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * The Importable interface represents an object that can import an image file.
+ * Classes that implement this interface must provide an implementation for the
+ * importImage method.
+ */
+public interface Importable {
+    /**
+     * Imports the specified image file.
+     *
+     * @param file the image file to be imported
+     * @throws IOException if an I/O error occurs while importing the file
+     */
+    void importImage(File file) throws IOException;
+}
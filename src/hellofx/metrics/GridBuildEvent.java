@@ -0,0 +1,23 @@
+package hellofx.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * The GridBuildEvent class is a Flight Recorder event covering the
+ * construction of the toggle buttons of the cell grid view.
+ */
+@Name("hellofx.GridBuild")
+@Label("Grid Build")
+@Category({ "Nonogram Maker", "UI" })
+@Description("Construction of the cell grid buttons")
+public class GridBuildEvent extends Event {
+    @Label("Rows")
+    public int numRows;
+
+    @Label("Columns")
+    public int numCols;
+}
@@ -0,0 +1,120 @@
+package hellofx.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The Histogram class records the distribution of non-negative values, such as
+ * durations in nanoseconds or sizes in bytes. Values are counted in buckets by
+ * their power of two, so recording is lock-free and takes constant time and
+ * memory.
+ */
+public class Histogram {
+    private static final int BUCKETS = 64;
+
+    private LongAdder count;
+    private LongAdder sum;
+    private AtomicLong min;
+    private AtomicLong max;
+    private AtomicLongArray buckets;
+
+    /**
+     * Constructs an empty Histogram.
+     */
+    public Histogram() {
+        count = new LongAdder();
+        sum = new LongAdder();
+        min = new AtomicLong(Long.MAX_VALUE);
+        max = new AtomicLong(Long.MIN_VALUE);
+        buckets = new AtomicLongArray(BUCKETS);
+    }
+
+    /**
+     * Records a value. Negative values are recorded as 0. The count is updated
+     * last, so a reader that sees a value counted also sees it in the minimum,
+     * maximum and buckets.
+     *
+     * @param value the value to record
+     */
+    public void record(long value) {
+        value = Math.max(0, value);
+        sum.add(value);
+        min.accumulateAndGet(value, Math::min);
+        max.accumulateAndGet(value, Math::max);
+        buckets.incrementAndGet(bucketOf(value));
+        count.increment();
+    }
+
+    /**
+     * Returns the number of recorded values.
+     *
+     * @return the number of recorded values
+     */
+    public long getCount() {
+        return count.sum();
+    }
+
+    /**
+     * Returns the sum of the recorded values.
+     *
+     * @return the sum of the recorded values
+     */
+    public long getSum() {
+        return sum.sum();
+    }
+
+    /**
+     * Returns the smallest recorded value.
+     *
+     * @return the smallest recorded value, or 0 if none was recorded
+     */
+    public long getMin() {
+        long value = min.get();
+        return value == Long.MAX_VALUE ? 0 : value;
+    }
+
+    /**
+     * Returns the largest recorded value.
+     *
+     * @return the largest recorded value, or 0 if none was recorded
+     */
+    public long getMax() {
+        return Math.max(0, max.get());
+    }
+
+    /**
+     * Returns an upper bound of the specified percentile of the recorded values,
+     * accurate to a factor of two.
+     *
+     * @param percentile the percentile, between 0 and 100
+     * @return the upper bound of the bucket holding the percentile, capped at the
+     *         largest recorded value, or 0 if none was recorded
+     */
+    public long getPercentile(double percentile) {
+        long total = getCount();
+        if (total == 0) {
+            return 0;
+        }
+        long rank = (long) Math.ceil(total * percentile / 100);
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += buckets.get(i);
+            if (seen >= rank) {
+                return Math.min(getMax(), i == 0 ? 0 : (1L << i) - 1);
+            }
+        }
+        return getMax();
+    }
+
+    /**
+     * Returns the bucket of a value: 0 for 0, otherwise one more than the index of
+     * its highest set bit.
+     *
+     * @param value the non-negative value
+     * @return the bucket index
+     */
+    private static int bucketOf(long value) {
+        return Math.min(BUCKETS - 1, 64 - Long.numberOfLeadingZeros(value));
+    }
+}
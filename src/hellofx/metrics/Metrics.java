@@ -0,0 +1,123 @@
+package hellofx.metrics;
+
+import java.io.BufferedWriter;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The Metrics class is the application-wide registry of counters and
+ * histograms. Metrics are created on first use and can be exported as a JSON
+ * snapshot. Durations are recorded in nanoseconds and sizes in bytes, by
+ * convention in metrics whose names end in ".nanos" and ".bytes".
+ */
+public class Metrics {
+    private static ConcurrentMap<String, LongAdder> counters = new ConcurrentHashMap<String, LongAdder>();
+    private static ConcurrentMap<String, Histogram> histograms = new ConcurrentHashMap<String, Histogram>();
+
+    /**
+     * Metrics only has static members.
+     */
+    private Metrics() {
+    }
+
+    /**
+     * Returns the counter with the specified name, creating it if needed.
+     *
+     * @param name the name of the counter
+     * @return the counter
+     */
+    public static LongAdder counter(String name) {
+        return counters.computeIfAbsent(name, key -> new LongAdder());
+    }
+
+    /**
+     * Returns the histogram with the specified name, creating it if needed.
+     *
+     * @param name the name of the histogram
+     * @return the histogram
+     */
+    public static Histogram histogram(String name) {
+        return histograms.computeIfAbsent(name, key -> new Histogram());
+    }
+
+    /**
+     * Records the time elapsed since the specified start in the histogram
+     * "name.nanos".
+     *
+     * @param name       the name of the operation
+     * @param startNanos the start of the operation, from System.nanoTime()
+     */
+    public static void recordDuration(String name, long startNanos) {
+        histogram(name + ".nanos").record(System.nanoTime() - startNanos);
+    }
+
+    /**
+     * Removes all counters and histograms.
+     */
+    public static void reset() {
+        counters.clear();
+        histograms.clear();
+    }
+
+    /**
+     * Returns a JSON snapshot of all counters and histograms, sorted by name.
+     *
+     * @return the JSON snapshot
+     */
+    public static String toJson() {
+        StringBuilder json = new StringBuilder("{\n  \"counters\": {");
+        String separator = "\n";
+        for (Map.Entry<String, LongAdder> entry : new TreeMap<String, LongAdder>(counters).entrySet()) {
+            json.append(separator).append("    ").append(quote(entry.getKey())).append(": ")
+                    .append(entry.getValue().sum());
+            separator = ",\n";
+        }
+        json.append("\n  },\n  \"histograms\": {");
+        separator = "\n";
+        for (Map.Entry<String, Histogram> entry : new TreeMap<String, Histogram>(histograms).entrySet()) {
+            Histogram h = entry.getValue();
+            json.append(separator).append("    ").append(quote(entry.getKey())).append(": {")
+                    .append("\"count\": ").append(h.getCount())
+                    .append(", \"sum\": ").append(h.getSum())
+                    .append(", \"min\": ").append(h.getMin())
+                    .append(", \"max\": ").append(h.getMax())
+                    .append(", \"p50\": ").append(h.getPercentile(50))
+                    .append(", \"p90\": ").append(h.getPercentile(90))
+                    .append(", \"p99\": ").append(h.getPercentile(99))
+                    .append("}");
+            separator = ",\n";
+        }
+        json.append("\n  }\n}\n");
+        return json.toString();
+    }
+
+    /**
+     * Writes a JSON snapshot of all metrics to a file.
+     *
+     * @param filename the name of the file to write to
+     * @throws IOException if an I/O error occurs while writing to the file
+     */
+    public static void writeJson(String filename) throws IOException {
+        BufferedWriter writer = new BufferedWriter(new FileWriter(filename));
+        try {
+            writer.write(toJson());
+        } finally {
+            writer.close();
+        }
+    }
+
+    /**
+     * Quotes a metric name as a JSON string.
+     *
+     * @param name the name to quote
+     * @return the quoted name
+     */
+    private static String quote(String name) {
+        return "\"" + name.replace("\\", "\\\\").replace("\"", "\\\"") + "\"";
+    }
+}
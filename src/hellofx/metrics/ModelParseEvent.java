@@ -0,0 +1,28 @@
+package hellofx.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * The ModelParseEvent class is a Flight Recorder event covering the parsing
+ * of a nonogram file into a model.
+ */
+@Name("hellofx.ModelParse")
+@Label("Model Parse")
+@Category({ "Nonogram Maker", "Model" })
+@Description("Parsing of a nonogram file")
+public class ModelParseEvent extends Event {
+    @Label("Rows")
+    public int numRows;
+
+    @Label("Columns")
+    public int numCols;
+
+    @Label("Bytes")
+    @DataAmount
+    public long bytes;
+}
@@ -0,0 +1,28 @@
+package hellofx.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * The ModelSaveEvent class is a Flight Recorder event covering the saving of
+ * a model to a nonogram file.
+ */
+@Name("hellofx.ModelSave")
+@Label("Model Save")
+@Category({ "Nonogram Maker", "Model" })
+@Description("Saving of a nonogram file")
+public class ModelSaveEvent extends Event {
+    @Label("Rows")
+    public int numRows;
+
+    @Label("Columns")
+    public int numCols;
+
+    @Label("Bytes")
+    @DataAmount
+    public long bytes;
+}
@@ -0,0 +1,23 @@
+package hellofx.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * The PresenterInitEvent class is a Flight Recorder event covering the
+ * initialization of the presenter after a model is created or opened.
+ */
+@Name("hellofx.PresenterInit")
+@Label("Presenter Init")
+@Category({ "Nonogram Maker", "UI" })
+@Description("Binding of a model to the view")
+public class PresenterInitEvent extends Event {
+    @Label("Rows")
+    public int numRows;
+
+    @Label("Columns")
+    public int numCols;
+}
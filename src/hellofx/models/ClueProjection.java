@@ -0,0 +1,268 @@
+package hellofx.models;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * The ClueProjection class holds the clues of every row and column of a
+ * nonogram grid. All clues are computed at once in parallel fork/join chunks.
+ * Columns are read through a blocked transpose, copying square tiles of the
+ * row-major grid into column-major buffers, so the column pass walks memory
+ * sequentially instead of striding across whole rows.
+ */
+public class ClueProjection {
+    /** Cells projected by one task before the work is split no further. */
+    private static final int CHUNK_CELLS = 1 << 16;
+    /** Side of the square tiles used by the blocked transpose. */
+    private static final int TILE = 64;
+
+    private int numRows;
+    private int numCols;
+    private List<List<Integer>> rowClues;
+    private List<List<Integer>> colClues;
+
+    /**
+     * Projects all rows and columns of the specified row-major grid.
+     *
+     * @param grid    The cells of the grid in row-major order.
+     * @param numRows The number of rows in the grid.
+     * @param numCols The number of columns in the grid.
+     */
+    ClueProjection(boolean[] grid, int numRows, int numCols) {
+        this.numRows = numRows;
+        this.numCols = numCols;
+        this.rowClues = new ArrayList<List<Integer>>(Collections.nCopies(numRows, (List<Integer>) null));
+        this.colClues = new ArrayList<List<Integer>>(Collections.nCopies(numCols, (List<Integer>) null));
+
+        int rowsPerChunk = Math.max(1, CHUNK_CELLS / numCols);
+        int colsPerChunk = Math.max(TILE, CHUNK_CELLS / numRows / TILE * TILE);
+        ForkJoinPool pool = ForkJoinPool.commonPool();
+        pool.invoke(new RowTask(grid, 0, numRows, rowsPerChunk));
+        pool.invoke(new ColTask(grid, 0, numCols, colsPerChunk));
+    }
+
+    /**
+     * The RowTask class projects a range of rows, splitting it in half until the
+     * range is small enough.
+     */
+    private class RowTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private boolean[] grid;
+        private int from;
+        private int to;
+        private int chunk;
+
+        /**
+         * Constructs a RowTask for the rows from one index up to another.
+         *
+         * @param grid  The cells of the grid in row-major order.
+         * @param from  The first row, inclusive.
+         * @param to    The last row, exclusive.
+         * @param chunk The number of rows projected without splitting further.
+         */
+        RowTask(boolean[] grid, int from, int to, int chunk) {
+            this.grid = grid;
+            this.from = from;
+            this.to = to;
+            this.chunk = chunk;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > chunk) {
+                int mid = (from + to) >>> 1;
+                invokeAll(new RowTask(grid, from, mid, chunk), new RowTask(grid, mid, to, chunk));
+                return;
+            }
+            for (int r = from; r < to; r++) {
+                rowClues.set(r, project(grid, r * numCols, numCols));
+            }
+        }
+    }
+
+    /**
+     * The ColTask class projects a range of columns, splitting it in half until
+     * the range is small enough. The columns of the range are first transposed
+     * into a column-major buffer tile by tile.
+     */
+    private class ColTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private boolean[] grid;
+        private int from;
+        private int to;
+        private int chunk;
+
+        /**
+         * Constructs a ColTask for the columns from one index up to another.
+         *
+         * @param grid  The cells of the grid in row-major order.
+         * @param from  The first column, inclusive.
+         * @param to    The last column, exclusive.
+         * @param chunk The number of columns projected without splitting further.
+         */
+        ColTask(boolean[] grid, int from, int to, int chunk) {
+            this.grid = grid;
+            this.from = from;
+            this.to = to;
+            this.chunk = chunk;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > chunk) {
+                int mid = from + (to - from) / 2 / TILE * TILE;
+                if (mid > from) {
+                    invokeAll(new ColTask(grid, from, mid, chunk), new ColTask(grid, mid, to, chunk));
+                    return;
+                }
+            }
+            int width = to - from;
+            boolean[] columns = new boolean[width * numRows];
+            for (int r0 = 0; r0 < numRows; r0 += TILE) {
+                int r1 = Math.min(numRows, r0 + TILE);
+                for (int c0 = from; c0 < to; c0 += TILE) {
+                    int c1 = Math.min(to, c0 + TILE);
+                    for (int r = r0; r < r1; r++) {
+                        int rowStart = r * numCols;
+                        for (int c = c0; c < c1; c++) {
+                            columns[(c - from) * numRows + r] = grid[rowStart + c];
+                        }
+                    }
+                }
+            }
+            for (int c = from; c < to; c++) {
+                colClues.set(c, project(columns, (c - from) * numRows, numRows));
+            }
+        }
+    }
+
+    /**
+     * Projects a line of cells stored consecutively in an array and returns the
+     * lengths of its consecutive filled cell groups.
+     *
+     * @param cells  The array holding the line.
+     * @param start  The index of the first cell of the line.
+     * @param length The number of cells in the line.
+     * @return A list of the lengths of the consecutive filled cell groups, or a
+     *         list holding 0 if no cell is filled.
+     */
+    static List<Integer> project(boolean[] cells, int start, int length) {
+        ArrayList<Integer> list = new ArrayList<Integer>();
+        int run = 0;
+        for (int i = start; i < start + length; i++) {
+            if (cells[i]) {
+                run++;
+            } else if (run > 0) {
+                list.add(run);
+                run = 0;
+            }
+        }
+        if (run > 0) {
+            list.add(run);
+        }
+        if (list.size() == 0) {
+            list.add(0);
+        }
+        return list;
+    }
+
+    /**
+     * Returns the number of rows in the projected grid.
+     *
+     * @return The number of rows.
+     */
+    public int getNumRows() {
+        return numRows;
+    }
+
+    /**
+     * Returns the number of columns in the projected grid.
+     *
+     * @return The number of columns.
+     */
+    public int getNumCols() {
+        return numCols;
+    }
+
+    /**
+     * Returns the clues of the specified row.
+     *
+     * @param rowIdx The index of the row.
+     * @return An unmodifiable list of the lengths of the consecutive filled cell
+     *         groups in the row.
+     */
+    public List<Integer> getRowClues(int rowIdx) {
+        return Collections.unmodifiableList(rowClues.get(rowIdx));
+    }
+
+    /**
+     * Returns the clues of the specified column.
+     *
+     * @param colIdx The index of the column.
+     * @return An unmodifiable list of the lengths of the consecutive filled cell
+     *         groups in the column.
+     */
+    public List<Integer> getColClues(int colIdx) {
+        return Collections.unmodifiableList(colClues.get(colIdx));
+    }
+
+    /**
+     * Returns the largest number of clues of any row.
+     *
+     * @return The largest row clue count.
+     */
+    public int getMaxRowClues() {
+        int max = 0;
+        for (List<Integer> clues : rowClues) {
+            max = Math.max(max, clues.size());
+        }
+        return max;
+    }
+
+    /**
+     * Returns the largest number of clues of any column.
+     *
+     * @return The largest column clue count.
+     */
+    public int getMaxColClues() {
+        int max = 0;
+        for (List<Integer> clues : colClues) {
+            max = Math.max(max, clues.size());
+        }
+        return max;
+    }
+
+    /**
+     * Returns whether the specified object is a projection with the same clues.
+     * A grid solves a puzzle exactly when its projection equals the puzzle's.
+     *
+     * @param o The object to compare with.
+     * @return true if the object is a projection with the same clues.
+     */
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof ClueProjection)) {
+            return false;
+        }
+        ClueProjection other = (ClueProjection) o;
+        return rowClues.equals(other.rowClues) && colClues.equals(other.colClues);
+    }
+
+    /**
+     * Returns a hash code derived from the clues.
+     *
+     * @return The hash code.
+     */
+    @Override
+    public int hashCode() {
+        return 31 * rowClues.hashCode() + colClues.hashCode();
+    }
+}
@@ -0,0 +1,92 @@
+package hellofx.models;
+
+/**
+ * The ColorClue class represents one clue of a multi-color nonogram: the length
+ * of a group of consecutive cells and the palette index of their color.
+ */
+public class ColorClue {
+    private int length;
+    private int color;
+
+    /**
+     * Constructs a ColorClue with the specified length and color.
+     *
+     * @param length The number of consecutive cells in the group.
+     * @param color  The palette index of the group's color.
+     */
+    public ColorClue(int length, int color) {
+        this.length = length;
+        this.color = color;
+    }
+
+    /**
+     * Parses a clue written as length:color.
+     *
+     * @param text The text of the clue.
+     * @return The parsed clue.
+     * @throws IllegalArgumentException if the text is not a valid clue.
+     */
+    public static ColorClue parse(String text) {
+        int separator = text.indexOf(':');
+        if (separator < 0) {
+            return new ColorClue(Integer.parseInt(text), 0);
+        }
+        return new ColorClue(Integer.parseInt(text.substring(0, separator)),
+                Integer.parseInt(text.substring(separator + 1)));
+    }
+
+    /**
+     * Returns the number of consecutive cells in the group.
+     *
+     * @return The length of the group.
+     */
+    public int getLength() {
+        return length;
+    }
+
+    /**
+     * Returns the palette index of the group's color.
+     *
+     * @return The color of the group.
+     */
+    public int getColor() {
+        return color;
+    }
+
+    /**
+     * Returns whether the specified object is a clue with the same length and
+     * color.
+     *
+     * @param o The object to compare with.
+     * @return true if the object is an equal clue.
+     */
+    @Override
+    public boolean equals(Object o) {
+        if (!(o instanceof ColorClue)) {
+            return false;
+        }
+        ColorClue other = (ColorClue) o;
+        return length == other.length && color == other.color;
+    }
+
+    /**
+     * Returns a hash code derived from the length and color.
+     *
+     * @return The hash code.
+     */
+    @Override
+    public int hashCode() {
+        return 31 * length + color;
+    }
+
+    /**
+     * Returns the clue written as length:color, or 0 for the clue of an empty
+     * line.
+     *
+     * @return The text of the clue.
+     */
+    @Override
+    public String toString() {
+        return length == 0 ? "0" : length + ":" + color;
+    }
+}
@@ -0,0 +1,338 @@
+package hellofx.models;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The ColorNonogramModel class represents a multi-color nonogram puzzle grid.
+ * Each cell holds an index into a palette, where index 0 is the empty
+ * background. Indices are packed 2 bits per cell for palettes of up to 4
+ * colors and 4 bits per cell for up to 16 colors.
+ *
+ * <p>Color puzzles are saved in an extended text format. The first line holds
+ * the number of rows, the number of columns and the number of colors; the
+ * second line holds the palette as #rrggbb colors. Row and column clues follow
+ * as length:color pairs, and each grid row is written as one hexadecimal
+ * palette index per cell.
+ */
+public class ColorNonogramModel {
+    public static final int MAX_COLORS = 16;
+
+    private long[] cells;
+    private int numRows;
+    private int numCols;
+    private int bitsPerCell;
+    private int cellsPerWord;
+    private long cellMask;
+    private List<String> palette;
+
+    /**
+     * Constructs a ColorNonogramModel object with the specified number of rows,
+     * columns and palette.
+     *
+     * @param numRows The number of rows in the nonogram grid.
+     * @param numCols The number of columns in the nonogram grid.
+     * @param palette The colors as #rrggbb strings; the first is the background.
+     * @throws IllegalArgumentException if the number of rows or columns is less
+     *                                  than 1, the palette has fewer than 2 or
+     *                                  more than 16 colors, or a color is not a
+     *                                  #rrggbb string.
+     */
+    public ColorNonogramModel(int numRows, int numCols, List<String> palette) {
+        init(numRows, numCols, palette);
+    }
+
+    /**
+     * Constructs a ColorNonogramModel object by reading the nonogram grid from a
+     * file in the color format.
+     *
+     * @param file The file containing the nonogram grid.
+     * @throws IOException              if an I/O error occurs while reading the
+     *                                  file.
+     * @throws IllegalArgumentException if the file is not a valid color puzzle.
+     */
+    public ColorNonogramModel(File file) throws IOException {
+        BufferedReader reader = NonogramFormat.openReader(file);
+        try {
+            String header = reader.readLine();
+            if (!isColorHeader(header)) {
+                throw new IllegalArgumentException("Not a color nonogram file: " + file);
+            }
+            String[] numbers = header.trim().split(" ");
+            int colors = Integer.parseInt(numbers[2]);
+            String paletteLine = reader.readLine();
+            if (paletteLine == null) {
+                throw new IllegalArgumentException("Missing palette in " + file);
+            }
+            List<String> colorList = new ArrayList<String>();
+            Collections.addAll(colorList, paletteLine.trim().split(" "));
+            if (colorList.size() != colors) {
+                throw new IllegalArgumentException(
+                        "Expected " + colors + " palette colors but found " + colorList.size() + " in " + file);
+            }
+            init(Integer.parseInt(numbers[0]), Integer.parseInt(numbers[1]), colorList);
+
+            for (int i = 0; i < numRows + numCols; i++) {
+                reader.readLine();
+            }
+            for (int r = 0; r < numRows; r++) {
+                String line = reader.readLine();
+                if (line == null || line.length() < numCols) {
+                    throw new IllegalArgumentException("Row " + (r + 1) + " is missing or too short in " + file);
+                }
+                for (int c = 0; c < numCols; c++) {
+                    setCell(r, c, Character.digit(line.charAt(c), MAX_COLORS));
+                }
+            }
+        } finally {
+            reader.close();
+        }
+    }
+
+    /**
+     * Checks the dimensions and palette and allocates an empty grid.
+     *
+     * @param numRows The number of rows in the nonogram grid.
+     * @param numCols The number of columns in the nonogram grid.
+     * @param palette The colors as #rrggbb strings; the first is the background.
+     * @throws IllegalArgumentException if the dimensions or palette are invalid.
+     */
+    private void init(int numRows, int numCols, List<String> palette) {
+        if (numRows < 1 || numCols < 1 || palette.size() < 2 || palette.size() > MAX_COLORS) {
+            throw new IllegalArgumentException();
+        }
+        for (String color : palette) {
+            if (!isColor(color)) {
+                throw new IllegalArgumentException("Not a #rrggbb color: " + color);
+            }
+        }
+        this.numRows = numRows;
+        this.numCols = numCols;
+        this.palette = new ArrayList<String>(palette);
+        bitsPerCell = palette.size() <= 4 ? 2 : 4;
+        cellsPerWord = Long.SIZE / bitsPerCell;
+        cellMask = (1L << bitsPerCell) - 1;
+        cells = new long[(int) (((long) numRows * numCols + cellsPerWord - 1) / cellsPerWord)];
+    }
+
+    /**
+     * Returns whether a string is a color in the #rrggbb form.
+     *
+     * @param color The string to check.
+     * @return true if the string is # followed by six hexadecimal digits.
+     */
+    private static boolean isColor(String color) {
+        if (color.length() != 7 || color.charAt(0) != '#') {
+            return false;
+        }
+        for (int i = 1; i < 7; i++) {
+            if (Character.digit(color.charAt(i), 16) < 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns whether a file is in the color format, judging by its first line.
+     *
+     * @param file The nonogram file.
+     * @return true if the first line holds rows, columns and a color count.
+     * @throws IOException if an I/O error occurs while reading the file.
+     */
+    public static boolean isColorFile(File file) throws IOException {
+        return isColorHeader(NonogramFormat.readHeader(file));
+    }
+
+    /**
+     * Returns whether the first line of a nonogram file belongs to the color
+     * format.
+     *
+     * @param header The first line of the file, or null if it is empty.
+     * @return true if the line holds rows, columns and a color count.
+     */
+    public static boolean isColorHeader(String header) {
+        return header != null && header.trim().split(" ").length == 3
+                && !header.startsWith(NonogramFormat.RLE_HEADER);
+    }
+
+    /**
+     * Returns the palette index of the cell at the specified row and column.
+     *
+     * @param rowIdx The index of the row.
+     * @param colIdx The index of the column.
+     * @return The palette index of the cell, 0 if it is empty.
+     */
+    public int getCell(int rowIdx, int colIdx) {
+        long index = (long) rowIdx * numCols + colIdx;
+        int shift = (int) (index % cellsPerWord) * bitsPerCell;
+        return (int) ((cells[(int) (index / cellsPerWord)] >>> shift) & cellMask);
+    }
+
+    /**
+     * Sets the palette index of the cell at the specified row and column.
+     *
+     * @param rowIdx The index of the row.
+     * @param colIdx The index of the column.
+     * @param color  The palette index, 0 to empty the cell.
+     * @throws IllegalArgumentException if the index is not in the palette.
+     */
+    public void setCell(int rowIdx, int colIdx, int color) {
+        if (color < 0 || color >= palette.size()) {
+            throw new IllegalArgumentException();
+        }
+        long index = (long) rowIdx * numCols + colIdx;
+        int word = (int) (index / cellsPerWord);
+        int shift = (int) (index % cellsPerWord) * bitsPerCell;
+        cells[word] = (cells[word] & ~(cellMask << shift)) | ((long) color << shift);
+    }
+
+    /**
+     * Returns the number of rows in the nonogram grid.
+     *
+     * @return The number of rows in the nonogram grid.
+     */
+    public int getNumRows() {
+        return numRows;
+    }
+
+    /**
+     * Returns the number of columns in the nonogram grid.
+     *
+     * @return The number of columns in the nonogram grid.
+     */
+    public int getNumCols() {
+        return numCols;
+    }
+
+    /**
+     * Returns the palette.
+     *
+     * @return An unmodifiable list of #rrggbb colors; the first is the
+     *         background.
+     */
+    public List<String> getPalette() {
+        return Collections.unmodifiableList(palette);
+    }
+
+    /**
+     * Returns the number of bits each cell is packed into.
+     *
+     * @return 2 or 4.
+     */
+    public int getBitsPerCell() {
+        return bitsPerCell;
+    }
+
+    /**
+     * Projects the cells in the specified array and returns the length and color
+     * of each group of consecutive cells of the same color. Two groups of
+     * different colors may touch; groups of the same color are separated by at
+     * least one empty cell.
+     *
+     * @param colors The palette indices of a row or column.
+     * @return The clues of the line, or a single clue of length 0 if it is empty.
+     */
+    public static List<ColorClue> project(int[] colors) {
+        List<ColorClue> list = new ArrayList<ColorClue>();
+        int i = 0;
+        while (i < colors.length) {
+            int color = colors[i];
+            int start = i;
+            while (i < colors.length && colors[i] == color) {
+                i++;
+            }
+            if (color != 0) {
+                list.add(new ColorClue(i - start, color));
+            }
+        }
+        if (list.size() == 0) {
+            list.add(new ColorClue(0, 0));
+        }
+        return list;
+    }
+
+    /**
+     * Projects the specified row into colored clues.
+     *
+     * @param rowIdx The index of the row.
+     * @return The clues of the row.
+     */
+    public List<ColorClue> projectRow(int rowIdx) {
+        int[] row = new int[numCols];
+        for (int c = 0; c < numCols; c++) {
+            row[c] = getCell(rowIdx, c);
+        }
+        return project(row);
+    }
+
+    /**
+     * Projects the specified column into colored clues.
+     *
+     * @param colIdx The index of the column.
+     * @return The clues of the column.
+     */
+    public List<ColorClue> projectCol(int colIdx) {
+        int[] col = new int[numRows];
+        for (int r = 0; r < numRows; r++) {
+            col[r] = getCell(r, colIdx);
+        }
+        return project(col);
+    }
+
+    /**
+     * Saves the nonogram grid to a file with the specified filename in the color
+     * format. The file is written as a stream, one line at a time, and is gzip
+     * compressed if its name ends in .gz.
+     *
+     * @param filename The name of the file to save the nonogram grid to.
+     * @throws IOException if an I/O error occurs while writing to the file.
+     */
+    public void saveToFile(String filename) throws IOException {
+        BufferedWriter writer = NonogramFormat.openWriter(filename);
+        try {
+            writer.write(numRows + " " + numCols + " " + palette.size() + "\n");
+            writer.write(String.join(" ", palette) + "\n");
+            for (int r = 0; r < numRows; r++) {
+                writeClues(writer, projectRow(r));
+            }
+            for (int c = 0; c < numCols; c++) {
+                writeClues(writer, projectCol(c));
+            }
+            char[] line = new char[numCols];
+            for (int r = 0; r < numRows; r++) {
+                for (int c = 0; c < numCols; c++) {
+                    line[c] = Character.forDigit(getCell(r, c), MAX_COLORS);
+                }
+                writer.write(line);
+                if (r + 1 < numRows) {
+                    writer.write('\n');
+                }
+            }
+        } finally {
+            writer.close();
+        }
+    }
+
+    /**
+     * Writes one line of clues separated by spaces.
+     *
+     * @param writer The writer to write to.
+     * @param clues  The clues of a row or column.
+     * @throws IOException if an I/O error occurs while writing.
+     */
+    private static void writeClues(BufferedWriter writer, List<ColorClue> clues) throws IOException {
+        for (int i = 0; i < clues.size(); i++) {
+            if (i > 0) {
+                writer.write(' ');
+            }
+            writer.write(clues.get(i).toString());
+        }
+        writer.write('\n');
+    }
+}
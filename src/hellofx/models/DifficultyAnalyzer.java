@@ -0,0 +1,399 @@
+package hellofx.models;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * The DifficultyAnalyzer class estimates how hard a puzzle is to solve by hand.
+ * It solves the puzzle from its clues with line logic alone, the way a person
+ * works through it one row or column at a time, and records how the solution
+ * unfolds: how many rounds of propagation are needed, how many lines have to
+ * be revisited, and whether line logic gets stuck, in which case the solver
+ * would have had to guess.
+ *
+ * <p>Each line is solved exactly: a cell is settled when every placement of
+ * the clues consistent with the known cells agrees on it. Lines are processed
+ * in rounds; a round solves every line whose cells were changed by the round
+ * before it.
+ */
+public class DifficultyAnalyzer {
+    /** The state of a cell that is not settled yet. */
+    public static final byte UNKNOWN = 0;
+    /** The state of a cell settled as filled. */
+    public static final byte FILLED = 1;
+    /** The state of a cell settled as empty. */
+    public static final byte EMPTY = 2;
+
+    private static final double ROUND_WEIGHT = 1.0;
+    private static final double REVISIT_WEIGHT = 20.0;
+    private static final double GUESS_WEIGHT = 50.0;
+
+    /**
+     * DifficultyAnalyzer only has static members.
+     */
+    private DifficultyAnalyzer() {
+    }
+
+    /**
+     * The Report class represents the trace of a line logic solve and the
+     * difficulty score derived from it.
+     */
+    public static class Report {
+        private int numRows;
+        private int numCols;
+        private int rounds;
+        private int lineSolves;
+        private int revisitedLines;
+        private long settledCells;
+
+        /**
+         * Returns the number of propagation rounds until line logic stopped
+         * making progress.
+         *
+         * @return The propagation depth.
+         */
+        public int getRounds() {
+            return rounds;
+        }
+
+        /**
+         * Returns the total number of times a line was solved.
+         *
+         * @return The number of line solves.
+         */
+        public int getLineSolves() {
+            return lineSolves;
+        }
+
+        /**
+         * Returns the number of lines that made progress in more than one round.
+         *
+         * @return The number of lines needing multiple passes.
+         */
+        public int getRevisitedLines() {
+            return revisitedLines;
+        }
+
+        /**
+         * Returns the number of cells settled by line logic.
+         *
+         * @return The number of settled cells.
+         */
+        public long getSettledCells() {
+            return settledCells;
+        }
+
+        /**
+         * Returns whether line logic alone could not solve the puzzle, so a
+         * solver would have had to guess.
+         *
+         * @return true if guessing was required.
+         */
+        public boolean requiresGuessing() {
+            return settledCells < (long) numRows * numCols;
+        }
+
+        /**
+         * Returns the difficulty score: one point per propagation round, up to
+         * twenty points for the share of lines needing multiple passes, and fifty
+         * points if guessing was required.
+         *
+         * @return The difficulty score.
+         */
+        public double getScore() {
+            double revisited = (double) revisitedLines / (numRows + numCols);
+            return ROUND_WEIGHT * rounds + REVISIT_WEIGHT * revisited + (requiresGuessing() ? GUESS_WEIGHT : 0);
+        }
+
+        /**
+         * Returns a one-line summary of the report.
+         *
+         * @return The summary.
+         */
+        @Override
+        public String toString() {
+            return String.format("score %.1f: %d rounds, %d line solves, %d lines revisited, %s", getScore(),
+                    rounds, lineSolves, revisitedLines, requiresGuessing() ? "guessing required" : "solved by logic");
+        }
+    }
+
+    /**
+     * Analyzes the puzzle described by the clues of a grid.
+     *
+     * @param model The grid whose clues make up the puzzle.
+     * @return The report.
+     */
+    public static Report analyze(NonogramMakerModel model) {
+        ClueProjection clues = model.getClues();
+        List<List<Integer>> rowClues = new ArrayList<List<Integer>>();
+        for (int r = 0; r < model.getNumRows(); r++) {
+            rowClues.add(clues.getRowClues(r));
+        }
+        List<List<Integer>> colClues = new ArrayList<List<Integer>>();
+        for (int c = 0; c < model.getNumCols(); c++) {
+            colClues.add(clues.getColClues(c));
+        }
+        return analyze(rowClues, colClues);
+    }
+
+    /**
+     * Analyzes the puzzle described by the specified clues.
+     *
+     * @param rowClues The clues of each row; a row without filled cells has the
+     *                 clue 0.
+     * @param colClues The clues of each column.
+     * @return The report.
+     * @throws IllegalArgumentException if the clues contradict each other.
+     */
+    public static Report analyze(List<List<Integer>> rowClues, List<List<Integer>> colClues) {
+        int numRows = rowClues.size();
+        int numCols = colClues.size();
+        int[][] lineClues = new int[numRows + numCols][];
+        for (int r = 0; r < numRows; r++) {
+            lineClues[r] = toArray(rowClues.get(r));
+        }
+        for (int c = 0; c < numCols; c++) {
+            lineClues[numRows + c] = toArray(colClues.get(c));
+        }
+
+        Report report = new Report();
+        report.numRows = numRows;
+        report.numCols = numCols;
+        byte[] cells = new byte[numRows * numCols];
+        int[] progressRounds = new int[numRows + numCols];
+        LineSolver solver = new LineSolver(Math.max(numRows, numCols));
+        byte[] line = new byte[Math.max(numRows, numCols)];
+
+        BitSet current = new BitSet();
+        current.set(0, numRows + numCols);
+        while (!current.isEmpty()) {
+            report.rounds++;
+            BitSet next = new BitSet();
+            for (int l = current.nextSetBit(0); l >= 0; l = current.nextSetBit(l + 1)) {
+                boolean isRow = l < numRows;
+                int index = isRow ? l : l - numRows;
+                int length = isRow ? numCols : numRows;
+                int start = isRow ? index * numCols : index;
+                int step = isRow ? 1 : numCols;
+                for (int i = 0; i < length; i++) {
+                    line[i] = cells[start + i * step];
+                }
+                report.lineSolves++;
+                if (!solver.solve(lineClues[l], line, length)) {
+                    throw new IllegalArgumentException("The clues have no solution");
+                }
+                boolean progress = false;
+                for (int i = 0; i < length; i++) {
+                    int cell = start + i * step;
+                    if (cells[cell] == UNKNOWN && line[i] != UNKNOWN) {
+                        cells[cell] = line[i];
+                        report.settledCells++;
+                        progress = true;
+                        // The crossing line has new information for the next round
+                        next.set(isRow ? numRows + i : i);
+                    }
+                }
+                if (progress && ++progressRounds[l] == 2) {
+                    report.revisitedLines++;
+                }
+            }
+            current = next;
+        }
+        return report;
+    }
+
+    /**
+     * Analyzes every puzzle file in a collection in parallel. Files that cannot
+     * be read or whose clues contradict each other are left out.
+     *
+     * @param files The puzzle files.
+     * @return The report of each analyzed file, ordered by file.
+     */
+    public static Map<File, Report> analyzeAll(Collection<File> files) {
+        Map<File, Report> reports = new ConcurrentSkipListMap<File, Report>();
+        files.parallelStream().forEach(file -> {
+            try {
+                reports.put(file, analyze(new NonogramMakerModel(file)));
+            } catch (IOException | RuntimeException e) {
+                // Not a readable puzzle
+            }
+        });
+        return reports;
+    }
+
+    /**
+     * Converts a list of clues to an array, dropping the 0 clue of an empty line.
+     *
+     * @param clues The clues of a line.
+     * @return The block lengths of the line.
+     */
+    private static int[] toArray(List<Integer> clues) {
+        if (clues.size() == 1 && clues.get(0) == 0) {
+            return new int[0];
+        }
+        int[] array = new int[clues.size()];
+        for (int i = 0; i < array.length; i++) {
+            array[i] = clues.get(i);
+        }
+        return array;
+    }
+
+    /**
+     * The LineSolver class settles every cell of a line that all placements of
+     * its blocks consistent with the known cells agree on. Placements are
+     * tracked with two dynamic programming tables, over prefixes and suffixes of
+     * the line. Each block can only lie between the shortest packing of the
+     * blocks before it and the shortest packing of the blocks after it, so only
+     * that window is visited, which makes nearly full lines cheap to solve. The
+     * buffers are reused from line to line.
+     */
+    public static class LineSolver {
+        private int capacity;
+        private boolean[] prefix = new boolean[0];
+        private boolean[] suffix = new boolean[0];
+        private int[] lo = new int[1];
+        private int[] hi = new int[1];
+        private int[] knownEmpty;
+        private int[] fillable;
+
+        /**
+         * Constructs a LineSolver for lines up to the specified length.
+         *
+         * @param capacity The length of the longest line.
+         */
+        public LineSolver(int capacity) {
+            this.capacity = capacity;
+            knownEmpty = new int[capacity + 1];
+            fillable = new int[capacity + 1];
+        }
+
+        /**
+         * Settles the cells of a line that are forced by its blocks.
+         *
+         * @param blocks The lengths of the blocks, in order; empty for a line
+         *               without filled cells.
+         * @param line   The cells of the line as UNKNOWN, FILLED or EMPTY,
+         *               updated in place.
+         * @param n      The length of the line, at most the capacity.
+         * @return false if no placement of the blocks fits the known cells.
+         */
+        public boolean solve(int[] blocks, byte[] line, int n) {
+            int k = blocks.length;
+            int stride = capacity + 1;
+            if (prefix.length < (k + 1) * stride) {
+                prefix = new boolean[(k + 1) * stride];
+                suffix = new boolean[(k + 1) * stride];
+                lo = new int[k + 1];
+                hi = new int[k + 1];
+            }
+            // lo[j]: the fewest cells holding blocks [0, j); hi[j]: the most cells
+            // that still leave room for blocks [j, k)
+            lo[0] = 0;
+            for (int j = 1; j <= k; j++) {
+                lo[j] = lo[j - 1] + blocks[j - 1] + (j > 1 ? 1 : 0);
+            }
+            hi[k] = n;
+            for (int j = k - 1; j >= 0; j--) {
+                hi[j] = hi[j + 1] - blocks[j] - (j < k - 1 ? 1 : 0);
+            }
+            if (lo[k] > n) {
+                return false;
+            }
+            for (int i = 0; i < n; i++) {
+                knownEmpty[i + 1] = knownEmpty[i] + (line[i] == EMPTY ? 1 : 0);
+            }
+
+            // prefix[j][i]: cells [0, i) hold exactly blocks [0, j)
+            for (int j = 0; j <= k; j++) {
+                int row = j * stride;
+                for (int i = lo[j]; i <= hi[j]; i++) {
+                    boolean ok = i > lo[j] ? line[i - 1] != FILLED && prefix[row + i - 1] : j == 0;
+                    if (!ok && j > 0) {
+                        int start = i - blocks[j - 1];
+                        ok = knownEmpty[i] == knownEmpty[start] && (start == 0 ? j == 1
+                                : line[start - 1] != FILLED && start - 1 >= lo[j - 1]
+                                        && prefix[row - stride + start - 1]);
+                    }
+                    prefix[row + i] = ok;
+                }
+            }
+            if (!prefix[k * stride + n]) {
+                return false;
+            }
+
+            // suffix[j][i]: cells [i, n) hold exactly blocks [j, k)
+            for (int j = k; j >= 0; j--) {
+                int row = j * stride;
+                for (int i = hi[j]; i >= lo[j]; i--) {
+                    boolean ok = i < hi[j] ? line[i] != FILLED && suffix[row + i + 1] : j == k;
+                    if (!ok && j < k) {
+                        int end = i + blocks[j];
+                        ok = knownEmpty[end] == knownEmpty[i] && (end == n ? j == k - 1
+                                : line[end] != FILLED && end + 1 <= hi[j + 1]
+                                        && suffix[row + stride + end + 1]);
+                    }
+                    suffix[row + i] = ok;
+                }
+            }
+
+            for (int i = 0; i <= n; i++) {
+                fillable[i] = 0;
+            }
+            for (int j = 0; j < k; j++) {
+                int length = blocks[j];
+                int row = j * stride;
+                for (int start = lo[j] + (j > 0 ? 1 : 0); start <= hi[j]; start++) {
+                    int end = start + length;
+                    if (knownEmpty[end] != knownEmpty[start]) {
+                        continue;
+                    }
+                    boolean before = start == 0 ? j == 0 : line[start - 1] != FILLED && prefix[row + start - 1];
+                    boolean after = end == n ? j == k - 1
+                            : line[end] != FILLED && end + 1 <= hi[j + 1] && suffix[row + stride + end + 1];
+                    if (before && after) {
+                        fillable[start]++;
+                        fillable[end]--;
+                    }
+                }
+            }
+
+            int covered = 0;
+            int first = 0;
+            int last = 0;
+            for (int i = 0; i < n; i++) {
+                covered += fillable[i];
+                boolean canBeFilled = covered > 0;
+                // The block counts j for which cell i can be a gap are contiguous
+                while (first < k && hi[first] < i + 1) {
+                    first++;
+                }
+                while (last < k && lo[last + 1] <= i) {
+                    last++;
+                }
+                boolean canBeEmpty = false;
+                if (line[i] != FILLED) {
+                    for (int j = first; j <= last && !canBeEmpty; j++) {
+                        canBeEmpty = prefix[j * stride + i] && suffix[j * stride + i + 1];
+                    }
+                }
+                if (!canBeFilled && !canBeEmpty) {
+                    return false;
+                }
+                if (line[i] == UNKNOWN) {
+                    if (!canBeFilled) {
+                        line[i] = EMPTY;
+                    } else if (!canBeEmpty) {
+                        line[i] = FILLED;
+                    }
+                }
+            }
+            return true;
+        }
+    }
+}
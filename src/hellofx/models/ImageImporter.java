@@ -0,0 +1,266 @@
+package hellofx.models;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferByte;
+import java.awt.image.DataBufferInt;
+import java.io.File;
+import java.io.IOException;
+import java.util.stream.IntStream;
+
+import javax.imageio.ImageIO;
+
+/**
+ * The ImageImporter class converts raster images into nonogram grids. The image
+ * is downsampled to the grid size by averaging the luminance of the pixels
+ * covered by each cell, in parallel bands of rows, and the averages are then
+ * turned into filled and empty cells by thresholding or dithering. Dark pixels
+ * become filled cells; transparent pixels count as white.
+ */
+public class ImageImporter {
+
+    /**
+     * The ways averaged luminance values can be turned into cells.
+     */
+    public enum Mode {
+        /** Fills every cell darker than the threshold. */
+        THRESHOLD,
+        /** Shifts the threshold per cell by a 4x4 Bayer matrix. */
+        ORDERED_DITHER,
+        /** Diffuses the thresholding error to neighbouring cells. */
+        FLOYD_STEINBERG
+    }
+
+    private static final int[] BAYER_4X4 = {
+            0, 8, 2, 10,
+            12, 4, 14, 6,
+            3, 11, 1, 9,
+            15, 7, 13, 5 };
+
+    private Mode mode;
+    private double threshold;
+
+    /**
+     * Constructs an ImageImporter with the specified mode and threshold.
+     *
+     * @param mode      The way luminance values are turned into cells.
+     * @param threshold The luminance, between 0 and 1, below which a cell is
+     *                  filled.
+     * @throws IllegalArgumentException if the threshold is outside [0, 1].
+     */
+    public ImageImporter(Mode mode, double threshold) {
+        if (!(threshold >= 0 && threshold <= 1)) {
+            throw new IllegalArgumentException();
+        }
+        this.mode = mode;
+        this.threshold = threshold;
+    }
+
+    /**
+     * Reads an image file and converts it into a model of the specified size.
+     *
+     * @param file    The image file.
+     * @param numRows The number of rows in the nonogram grid.
+     * @param numCols The number of columns in the nonogram grid.
+     * @return The model created from the image.
+     * @throws IOException              if the file cannot be read or is not a
+     *                                  supported image.
+     * @throws IllegalArgumentException if the number of rows or columns is less
+     *                                  than 1.
+     */
+    public NonogramMakerModel importImage(File file, int numRows, int numCols) throws IOException {
+        BufferedImage image = ImageIO.read(file);
+        if (image == null) {
+            throw new IOException("Unsupported image format: " + file);
+        }
+        return importImage(image, numRows, numCols);
+    }
+
+    /**
+     * Converts an image into a model of the specified size.
+     *
+     * @param image   The image.
+     * @param numRows The number of rows in the nonogram grid.
+     * @param numCols The number of columns in the nonogram grid.
+     * @return The model created from the image.
+     * @throws IllegalArgumentException if the number of rows or columns is less
+     *                                  than 1.
+     */
+    public NonogramMakerModel importImage(BufferedImage image, int numRows, int numCols) {
+        NonogramMakerModel model = new NonogramMakerModel(numRows, numCols);
+        double[] luminance = downsample(image, numRows, numCols);
+        if (mode == Mode.FLOYD_STEINBERG) {
+            diffuse(luminance, numRows, numCols);
+        }
+        for (int r = 0; r < numRows; r++) {
+            for (int c = 0; c < numCols; c++) {
+                double value = luminance[r * numCols + c];
+                if (mode == Mode.ORDERED_DITHER) {
+                    value += 0.5 - (BAYER_4X4[(r % 4) * 4 + c % 4] + 0.5) / 16;
+                }
+                model.setCell(r, c, value < threshold);
+            }
+        }
+        return model;
+    }
+
+    /**
+     * Averages the luminance of the image over each cell of a grid of the
+     * specified size. Bands of grid rows are processed in parallel, each reading
+     * only the image rows it covers. Images smaller than the grid are sampled
+     * with the nearest pixel.
+     *
+     * @param image   The image.
+     * @param numRows The number of rows in the grid.
+     * @param numCols The number of columns in the grid.
+     * @return The average luminance of each cell, between 0 and 1, in row-major
+     *         order.
+     */
+    public static double[] downsample(BufferedImage image, int numRows, int numCols) {
+        int width = image.getWidth();
+        int height = image.getHeight();
+        double[] luminance = new double[numRows * numCols];
+        int[] colStart = new int[numCols + 1];
+        for (int c = 0; c <= numCols; c++) {
+            colStart[c] = (int) ((long) c * width / numCols);
+        }
+
+        IntStream.range(0, numRows).parallel().forEach(r -> {
+            int y0 = Math.min((int) ((long) r * height / numRows), height - 1);
+            int y1 = Math.max(y0 + 1, (int) ((long) (r + 1) * height / numRows));
+            double[] sums = new double[numCols];
+            float[] rowLuminance = new float[width];
+            for (int y = y0; y < y1; y++) {
+                readRow(image, y, rowLuminance);
+                for (int c = 0; c < numCols; c++) {
+                    int x0 = Math.min(colStart[c], width - 1);
+                    int x1 = Math.max(x0 + 1, colStart[c + 1]);
+                    double sum = 0;
+                    for (int x = x0; x < x1; x++) {
+                        sum += rowLuminance[x];
+                    }
+                    sums[c] += sum / (x1 - x0);
+                }
+            }
+            for (int c = 0; c < numCols; c++) {
+                luminance[r * numCols + c] = sums[c] / (y1 - y0);
+            }
+        });
+        return luminance;
+    }
+
+    /**
+     * Reads the luminance of one image row, composited over white. Common image
+     * types are read straight from their pixel buffers.
+     *
+     * @param image The image.
+     * @param y     The index of the image row.
+     * @param out   The array receiving one luminance value per pixel.
+     */
+    private static void readRow(BufferedImage image, int y, float[] out) {
+        int width = image.getWidth();
+        // Sub-images share a larger pixel buffer, so only read buffers directly
+        // when the raster owns them
+        int type = image.getRaster().getParent() == null ? image.getType() : BufferedImage.TYPE_CUSTOM;
+        switch (type) {
+            case BufferedImage.TYPE_BYTE_GRAY: {
+                byte[] data = ((DataBufferByte) image.getRaster().getDataBuffer()).getData();
+                int offset = y * width;
+                for (int x = 0; x < width; x++) {
+                    out[x] = (data[offset + x] & 0xff) / 255f;
+                }
+                return;
+            }
+            case BufferedImage.TYPE_3BYTE_BGR: {
+                byte[] data = ((DataBufferByte) image.getRaster().getDataBuffer()).getData();
+                int offset = y * width * 3;
+                for (int x = 0; x < width; x++, offset += 3) {
+                    out[x] = luminance(data[offset + 2] & 0xff, data[offset + 1] & 0xff, data[offset] & 0xff, 255);
+                }
+                return;
+            }
+            case BufferedImage.TYPE_4BYTE_ABGR: {
+                byte[] data = ((DataBufferByte) image.getRaster().getDataBuffer()).getData();
+                int offset = y * width * 4;
+                for (int x = 0; x < width; x++, offset += 4) {
+                    out[x] = luminance(data[offset + 3] & 0xff, data[offset + 2] & 0xff, data[offset + 1] & 0xff,
+                            data[offset] & 0xff);
+                }
+                return;
+            }
+            case BufferedImage.TYPE_INT_RGB:
+            case BufferedImage.TYPE_INT_ARGB: {
+                int[] data = ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
+                boolean alpha = image.getType() == BufferedImage.TYPE_INT_ARGB;
+                int offset = y * width;
+                for (int x = 0; x < width; x++) {
+                    out[x] = luminance(data[offset + x], alpha);
+                }
+                return;
+            }
+            default: {
+                int[] argb = image.getRGB(0, y, width, 1, null, 0, width);
+                for (int x = 0; x < width; x++) {
+                    out[x] = luminance(argb[x], image.getColorModel().hasAlpha());
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the luminance of a packed ARGB pixel composited over white.
+     *
+     * @param argb  The packed pixel.
+     * @param alpha Whether the alpha channel is meaningful.
+     * @return The luminance, between 0 and 1.
+     */
+    private static float luminance(int argb, boolean alpha) {
+        return luminance((argb >> 16) & 0xff, (argb >> 8) & 0xff, argb & 0xff, alpha ? (argb >>> 24) : 255);
+    }
+
+    /**
+     * Returns the luminance of a pixel composited over white.
+     *
+     * @param red   The red channel, 0 to 255.
+     * @param green The green channel, 0 to 255.
+     * @param blue  The blue channel, 0 to 255.
+     * @param alpha The alpha channel, 0 to 255.
+     * @return The luminance, between 0 and 1.
+     */
+    private static float luminance(int red, int green, int blue, int alpha) {
+        float value = (0.299f * red + 0.587f * green + 0.114f * blue) / 255f;
+        float opacity = alpha / 255f;
+        return value * opacity + (1 - opacity);
+    }
+
+    /**
+     * Applies Floyd-Steinberg error diffusion in place, leaving every value at
+     * either 0 or 1 relative to the threshold.
+     *
+     * @param luminance The luminance values in row-major order.
+     * @param numRows   The number of rows in the grid.
+     * @param numCols   The number of columns in the grid.
+     */
+    private void diffuse(double[] luminance, int numRows, int numCols) {
+        for (int r = 0; r < numRows; r++) {
+            for (int c = 0; c < numCols; c++) {
+                int i = r * numCols + c;
+                double old = luminance[i];
+                double quantized = old < threshold ? 0 : 1;
+                double error = old - quantized;
+                luminance[i] = quantized;
+                if (c + 1 < numCols) {
+                    luminance[i + 1] += error * 7 / 16;
+                }
+                if (r + 1 < numRows) {
+                    if (c > 0) {
+                        luminance[i + numCols - 1] += error * 3 / 16;
+                    }
+                    luminance[i + numCols] += error * 5 / 16;
+                    if (c + 1 < numCols) {
+                        luminance[i + numCols + 1] += error / 16;
+                    }
+                }
+            }
+        }
+    }
+}
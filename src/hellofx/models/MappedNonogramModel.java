@@ -0,0 +1,493 @@
+package hellofx.models;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * The MappedNonogramModel class represents a nonogram puzzle grid stored
+ * outside the Java heap, in a memory-mapped file with one bit per cell. Rows
+ * are packed into 64-bit words and mapped in pages of rows on first access, so
+ * the grid may be larger than the heap and is paged in and out by the
+ * operating system. Cells are addressed with long offsets.
+ *
+ * <p>The content hash is the same as that of a NonogramMakerModel with the same
+ * cells, so both representations can be compared and deduplicated together.
+ */
+public class MappedNonogramModel implements Closeable {
+    private static final int MAGIC = 0x4e474d4d; // "NGMM"
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 64;
+    private static final int HASH_OFFSET = 16;
+    private static final long MAX_PAGE_BYTES = 64L * 1024 * 1024;
+
+    private RandomAccessFile file;
+    private FileChannel channel;
+    private int numRows;
+    private int numCols;
+    private int rowWords;
+    private long rowBytes;
+    private int pageRows;
+    private AtomicReferenceArray<MappedByteBuffer> pages;
+    private long hash;
+
+    /**
+     * Opens or creates a mapped grid file. Only the header is read; pages of rows
+     * are mapped when first accessed.
+     *
+     * @param file    The file holding the grid.
+     * @param numRows The number of rows of a new grid.
+     * @param numCols The number of columns of a new grid.
+     * @param create  Whether to create a new grid instead of opening one.
+     * @throws IOException if an I/O error occurs or the file is not a mapped grid.
+     */
+    private MappedNonogramModel(File file, int numRows, int numCols, boolean create) throws IOException {
+        this.file = new RandomAccessFile(file, "rw");
+        this.channel = this.file.getChannel();
+        try {
+            if (create) {
+                this.numRows = numRows;
+                this.numCols = numCols;
+                this.file.setLength(0);
+                this.file.writeInt(MAGIC);
+                this.file.writeInt(VERSION);
+                this.file.writeInt(numRows);
+                this.file.writeInt(numCols);
+                this.file.writeLong(0);
+            } else {
+                if (this.file.length() < HEADER_BYTES || this.file.readInt() != MAGIC
+                        || this.file.readInt() != VERSION) {
+                    throw new IOException("Not a mapped nonogram file: " + file);
+                }
+                this.numRows = this.file.readInt();
+                this.numCols = this.file.readInt();
+                this.hash = this.file.readLong();
+            }
+            if (this.numRows < 1 || this.numCols < 1) {
+                throw new IllegalArgumentException();
+            }
+            rowWords = (this.numCols + 63) >>> 6;
+            rowBytes = (long) rowWords * Long.BYTES;
+            pageRows = (int) Math.max(1, Math.min(this.numRows, MAX_PAGE_BYTES / rowBytes));
+            pages = new AtomicReferenceArray<MappedByteBuffer>((this.numRows + pageRows - 1) / pageRows);
+            if (create) {
+                // Extending the file leaves the grid sparse and zero-filled
+                this.file.setLength(HEADER_BYTES + rowBytes * this.numRows);
+            }
+        } catch (IOException | RuntimeException e) {
+            this.file.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Creates a new, empty mapped grid file with the specified number of rows and
+     * columns, replacing any existing file.
+     *
+     * @param file    The file to hold the grid.
+     * @param numRows The number of rows in the nonogram grid.
+     * @param numCols The number of columns in the nonogram grid.
+     * @return The mapped model.
+     * @throws IOException              if an I/O error occurs while creating the
+     *                                  file.
+     * @throws IllegalArgumentException if the number of rows or columns is less
+     *                                  than 1.
+     */
+    public static MappedNonogramModel create(File file, int numRows, int numCols) throws IOException {
+        if (numRows < 1 || numCols < 1) {
+            throw new IllegalArgumentException();
+        }
+        return new MappedNonogramModel(file, numRows, numCols, true);
+    }
+
+    /**
+     * Opens an existing mapped grid file.
+     *
+     * @param file The file holding the grid.
+     * @return The mapped model.
+     * @throws IOException if an I/O error occurs or the file is not a mapped grid.
+     */
+    public static MappedNonogramModel open(File file) throws IOException {
+        return new MappedNonogramModel(file, 0, 0, false);
+    }
+
+    /**
+     * Converts a nonogram text file into a mapped grid file. The text file is
+     * streamed one row at a time, so the grid is never held on the heap.
+     * Run-length encoded and gzip compressed text files are read as well.
+     *
+     * @param textFile   The nonogram text file.
+     * @param mappedFile The mapped grid file to create.
+     * @return The mapped model.
+     * @throws IOException              if an I/O error occurs while reading or
+     *                                  writing.
+     * @throws IllegalArgumentException if the text file has no valid header or
+     *                                  the number of rows or columns is less
+     *                                  than 1.
+     */
+    public static MappedNonogramModel fromTextFile(File textFile, File mappedFile) throws IOException {
+        BufferedReader reader = NonogramFormat.openReader(textFile);
+        try {
+            int[] size = NonogramFormat.parseDimensions(reader.readLine());
+            if (size == null) {
+                throw new IllegalArgumentException("Not a nonogram file: " + textFile);
+            }
+            boolean rle = size[2] != 0;
+            int numRows = size[0];
+            int numCols = size[1];
+            MappedNonogramModel model = create(mappedFile, numRows, numCols);
+            try {
+                for (int i = 0; i < numRows + numCols; i++) {
+                    reader.readLine();
+                }
+                long[] words = new long[model.rowWords];
+                boolean[] row = new boolean[rle ? numCols : 0];
+                for (int r = 0; r < numRows; r++) {
+                    String line = reader.readLine();
+                    Arrays.fill(words, 0);
+                    if (rle) {
+                        Arrays.fill(row, false);
+                        NonogramFormat.readRleRow(line == null ? "" : line, row, 0, numCols);
+                    }
+                    for (int c = 0; c < numCols; c++) {
+                        if (rle ? row[c] : line.charAt(c) == NonogramFormat.FILLED_CELL_CHAR) {
+                            words[c >>> 6] |= 1L << (c & 63);
+                            model.hash ^= NonogramMakerModel.zobristKey((long) r * numCols + c);
+                        }
+                    }
+                    model.writeRow(r, words);
+                }
+                model.writeHash();
+            } catch (IOException | RuntimeException e) {
+                model.close();
+                throw e;
+            }
+            return model;
+        } finally {
+            reader.close();
+        }
+    }
+
+    /**
+     * Converts a nonogram text file into a temporary mapped working copy, which
+     * is deleted when the virtual machine exits.
+     *
+     * @param textFile The nonogram text file.
+     * @return The mapped model of the working copy.
+     * @throws IOException              if an I/O error occurs while reading or
+     *                                  writing.
+     * @throws IllegalArgumentException if the text file has no valid header or
+     *                                  the number of rows or columns is less
+     *                                  than 1.
+     */
+    public static MappedNonogramModel workingCopyOf(File textFile) throws IOException {
+        File workingCopy = File.createTempFile("nonogram", ".ngmm");
+        workingCopy.deleteOnExit();
+        return fromTextFile(textFile, workingCopy);
+    }
+
+    /**
+     * Returns the page holding the specified row, mapping it if needed. Pages are
+     * published through an atomic array, so a page mapped by one thread is seen
+     * fully mapped by every other.
+     *
+     * @param rowIdx The index of the row.
+     * @return The mapped page.
+     * @throws IndexOutOfBoundsException if the row does not exist.
+     */
+    private MappedByteBuffer page(int rowIdx) {
+        if (rowIdx < 0 || rowIdx >= numRows) {
+            throw new IndexOutOfBoundsException(rowIdx);
+        }
+        int pageIdx = rowIdx / pageRows;
+        MappedByteBuffer page = pages.get(pageIdx);
+        if (page == null) {
+            synchronized (this) {
+                page = pages.get(pageIdx);
+                if (page == null) {
+                    long firstRow = (long) pageIdx * pageRows;
+                    long rows = Math.min(pageRows, numRows - firstRow);
+                    try {
+                        page = channel.map(FileChannel.MapMode.READ_WRITE, HEADER_BYTES + firstRow * rowBytes,
+                                rows * rowBytes);
+                    } catch (IOException e) {
+                        throw new IllegalStateException(e);
+                    }
+                    pages.set(pageIdx, page);
+                }
+            }
+        }
+        return page;
+    }
+
+    /**
+     * Returns the offset of a word within the page holding its row.
+     *
+     * @param rowIdx  The index of the row.
+     * @param wordIdx The index of the word within the row.
+     * @return The byte offset within the page.
+     */
+    private int wordOffset(int rowIdx, int wordIdx) {
+        return (int) ((long) (rowIdx % pageRows) * rowBytes + (long) wordIdx * Long.BYTES);
+    }
+
+    /**
+     * Returns the value of the cell at the specified row and column.
+     *
+     * @param rowIdx The index of the row.
+     * @param colIdx The index of the column.
+     * @return The value of the cell at the specified row and column.
+     */
+    public boolean getCell(int rowIdx, int colIdx) {
+        checkCol(colIdx);
+        long word = page(rowIdx).getLong(wordOffset(rowIdx, colIdx >>> 6));
+        return (word & (1L << (colIdx & 63))) != 0;
+    }
+
+    /**
+     * Sets the value of the cell at the specified row and column.
+     *
+     * @param rowIdx The index of the row.
+     * @param colIdx The index of the column.
+     * @param value  The new value for the cell.
+     */
+    public void setCell(int rowIdx, int colIdx, boolean value) {
+        checkCol(colIdx);
+        MappedByteBuffer page = page(rowIdx);
+        int offset = wordOffset(rowIdx, colIdx >>> 6);
+        long word = page.getLong(offset);
+        long bit = 1L << (colIdx & 63);
+        if (((word & bit) != 0) != value) {
+            page.putLong(offset, word ^ bit);
+            hash ^= NonogramMakerModel.zobristKey((long) rowIdx * numCols + colIdx);
+        }
+    }
+
+    /**
+     * Copies the packed words of a row, with bit c of word c / 64 holding the
+     * cell in column c.
+     *
+     * @param rowIdx The index of the row.
+     * @param words  The array receiving the row, at least getRowWords() long.
+     */
+    public void readRow(int rowIdx, long[] words) {
+        MappedByteBuffer page = page(rowIdx);
+        int offset = wordOffset(rowIdx, 0);
+        for (int w = 0; w < rowWords; w++) {
+            words[w] = page.getLong(offset + w * Long.BYTES);
+        }
+    }
+
+    /**
+     * Overwrites a row with packed words, without updating the content hash.
+     *
+     * @param rowIdx The index of the row.
+     * @param words  The packed row.
+     */
+    private void writeRow(int rowIdx, long[] words) {
+        MappedByteBuffer page = page(rowIdx);
+        int offset = wordOffset(rowIdx, 0);
+        for (int w = 0; w < rowWords; w++) {
+            page.putLong(offset + w * Long.BYTES, words[w]);
+        }
+    }
+
+    /**
+     * Returns the number of rows in the nonogram grid.
+     *
+     * @return The number of rows in the nonogram grid.
+     */
+    public int getNumRows() {
+        return numRows;
+    }
+
+    /**
+     * Returns the number of columns in the nonogram grid.
+     *
+     * @return The number of columns in the nonogram grid.
+     */
+    public int getNumCols() {
+        return numCols;
+    }
+
+    /**
+     * Returns the number of 64-bit words each row is packed into.
+     *
+     * @return The number of words per row.
+     */
+    public int getRowWords() {
+        return rowWords;
+    }
+
+    /**
+     * Returns the total number of cells in the grid.
+     *
+     * @return The number of cells.
+     */
+    public long getNumCells() {
+        return (long) numRows * numCols;
+    }
+
+    /**
+     * Returns the content hash of the grid, equal to that of a
+     * NonogramMakerModel with the same cells.
+     *
+     * @return The content hash of the nonogram grid.
+     */
+    public long getContentHash() {
+        return NonogramMakerModel.contentHash(hash, numRows, numCols);
+    }
+
+    /**
+     * Projects the filled cells in the specified row and returns a list of the
+     * lengths of the consecutive filled cell groups.
+     *
+     * @param rowIdx The index of the row.
+     * @return A list of the lengths of the consecutive filled cell groups in the
+     *         specified row.
+     */
+    public List<Integer> projectRow(int rowIdx) {
+        long[] words = new long[rowWords];
+        readRow(rowIdx, words);
+        return NonogramMakerModel.projectWords(words, numCols);
+    }
+
+    /**
+     * Projects the filled cells in the specified column and returns a list of the
+     * lengths of the consecutive filled cell groups.
+     *
+     * @param colIdx The index of the column.
+     * @return A list of the lengths of the consecutive filled cell groups in the
+     *         specified column.
+     */
+    public List<Integer> projectCol(int colIdx) {
+        checkCol(colIdx);
+        boolean[] col = new boolean[numRows];
+        for (int r = 0; r < numRows; r++) {
+            col[r] = getCell(r, colIdx);
+        }
+        return NonogramMakerModel.project(col);
+    }
+
+    /**
+     * Saves the nonogram grid to a file in the text format read by
+     * NonogramMakerModel. As with NonogramMakerModel, files named .rle are
+     * written with run-length encoded rows and files named .gz are gzip
+     * compressed. The file is written as a stream; column clues are computed 64
+     * columns at a time, one packed word per row, so the grid is never held on
+     * the heap.
+     *
+     * @param filename The name of the file to save the nonogram grid to.
+     * @throws IOException if an I/O error occurs while writing to the file.
+     */
+    public void saveToFile(String filename) throws IOException {
+        boolean rle = NonogramFormat.isRle(filename);
+        BufferedWriter writer = NonogramFormat.openWriter(filename);
+        try {
+            NonogramFormat.writeHeader(writer, numRows, numCols, rle);
+            for (int r = 0; r < numRows; r++) {
+                NonogramFormat.writeClues(writer, projectRow(r));
+            }
+
+            for (int w = 0; w < rowWords; w++) {
+                int cols = Math.min(64, numCols - w * 64);
+                List<List<Integer>> clues = new ArrayList<List<Integer>>(cols);
+                int[] runs = new int[cols];
+                for (int b = 0; b < cols; b++) {
+                    clues.add(new ArrayList<Integer>());
+                }
+                for (int r = 0; r < numRows; r++) {
+                    long word = page(r).getLong(wordOffset(r, w));
+                    for (int b = 0; b < cols; b++) {
+                        if ((word & (1L << b)) != 0) {
+                            runs[b]++;
+                        } else if (runs[b] > 0) {
+                            clues.get(b).add(runs[b]);
+                            runs[b] = 0;
+                        }
+                    }
+                }
+                for (int b = 0; b < cols; b++) {
+                    NonogramMakerModel.endClues(clues.get(b), runs[b]);
+                    NonogramFormat.writeClues(writer, clues.get(b));
+                }
+            }
+
+            long[] words = new long[rowWords];
+            boolean[] row = new boolean[numCols];
+            char[] line = new char[numCols];
+            for (int r = 0; r < numRows; r++) {
+                readRow(r, words);
+                for (int c = 0; c < numCols; c++) {
+                    row[c] = (words[c >>> 6] & (1L << (c & 63))) != 0;
+                }
+                NonogramFormat.writeRow(writer, row, 0, numCols, rle, line);
+                writer.write('\n');
+            }
+            writer.write(NonogramMakerModel.hashLine(getContentHash()));
+        } finally {
+            writer.close();
+        }
+    }
+
+    /**
+     * Writes all changed pages and the content hash to the file.
+     *
+     * @throws IOException if an I/O error occurs while writing the header.
+     */
+    public void flush() throws IOException {
+        for (int i = 0; i < pages.length(); i++) {
+            MappedByteBuffer page = pages.get(i);
+            if (page != null) {
+                page.force();
+            }
+        }
+        writeHash();
+    }
+
+    /**
+     * Writes the content hash to the file header.
+     *
+     * @throws IOException if an I/O error occurs while writing the header.
+     */
+    private void writeHash() throws IOException {
+        file.seek(HASH_OFFSET);
+        file.writeLong(hash);
+    }
+
+    /**
+     * Flushes the grid and closes the file. The pages stay mapped until they are
+     * garbage collected but must no longer be used.
+     *
+     * @throws IOException if an I/O error occurs while flushing or closing.
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            flush();
+        } finally {
+            file.close();
+        }
+    }
+
+    /**
+     * Checks that a column index is within the grid.
+     *
+     * @param colIdx The index of the column.
+     * @throws IndexOutOfBoundsException if the column does not exist.
+     */
+    private void checkCol(int colIdx) {
+        if (colIdx < 0 || colIdx >= numCols) {
+            throw new IndexOutOfBoundsException(colIdx);
+        }
+    }
+}
@@ -0,0 +1,241 @@
+package hellofx.models;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * The ModelCache class keeps recently opened nonogram models in memory so that
+ * reopening an unchanged puzzle file skips reading and parsing it. Entries are
+ * keyed by path, modification time and size, and the least recently used
+ * entries are evicted once the estimated memory use exceeds the budget.
+ */
+public class ModelCache {
+    /** Estimated fixed cost of a cached model besides its grid. */
+    private static final long ENTRY_OVERHEAD_BYTES = 128;
+
+    private LinkedHashMap<String, CachedModel> entries;
+    private long maxBytes;
+    private long usedBytes;
+    private long hits;
+    private long misses;
+
+    /**
+     * The CachedModel class holds a parsed model together with the file
+     * attributes it was parsed from.
+     */
+    private static class CachedModel {
+        private long lastModified;
+        private long length;
+        private NonogramMakerModel model;
+        private long weight;
+
+        /**
+         * Constructs a CachedModel for the specified file attributes and model.
+         *
+         * @param lastModified The modification time of the file.
+         * @param length       The size of the file in bytes.
+         * @param model        The parsed model.
+         */
+        CachedModel(long lastModified, long length, NonogramMakerModel model) {
+            this.lastModified = lastModified;
+            this.length = length;
+            this.model = model;
+            this.weight = weigh(model);
+        }
+    }
+
+    /**
+     * Constructs a ModelCache that holds at most the specified number of bytes of
+     * models.
+     *
+     * @param maxBytes The memory budget in bytes.
+     * @throws IllegalArgumentException if the budget is not positive.
+     */
+    public ModelCache(long maxBytes) {
+        if (maxBytes < 1) {
+            throw new IllegalArgumentException();
+        }
+        this.maxBytes = maxBytes;
+        this.entries = new LinkedHashMap<String, CachedModel>(16, 0.75f, true);
+    }
+
+    /**
+     * Returns the model for the specified file, parsing it only if no cached copy
+     * of the same file version is present. The returned model is a private copy
+     * that the caller may modify.
+     *
+     * @param file The nonogram file to open.
+     * @return The model read from the file.
+     * @throws IOException              if an I/O error occurs while reading the
+     *                                  file.
+     * @throws IllegalArgumentException if the number of rows or columns is less
+     *                                  than 1.
+     */
+    public NonogramMakerModel open(File file) throws IOException {
+        NonogramMakerModel cached = get(file);
+        if (cached != null) {
+            return cached;
+        }
+        return load(file);
+    }
+
+    /**
+     * Parses the specified file and caches the model, without looking for a
+     * cached copy first. Callers that already missed the cache through get use
+     * this to avoid counting the miss twice.
+     *
+     * @param file The nonogram file to read.
+     * @return The model read from the file.
+     * @throws IOException              if an I/O error occurs while reading the
+     *                                  file.
+     * @throws IllegalArgumentException if the number of rows or columns is less
+     *                                  than 1.
+     */
+    public NonogramMakerModel load(File file) throws IOException {
+        long lastModified = file.lastModified();
+        long length = file.length();
+        NonogramMakerModel model = new NonogramMakerModel(file);
+        put(file, lastModified, length, model);
+        return model;
+    }
+
+    /**
+     * Returns a copy of the cached model for the specified file, or null if the
+     * file is not cached or changed since it was cached.
+     *
+     * @param file The nonogram file.
+     * @return A copy of the cached model, or null.
+     */
+    public synchronized NonogramMakerModel get(File file) {
+        String key = keyOf(file);
+        CachedModel entry = entries.get(key);
+        if (entry == null) {
+            misses++;
+            return null;
+        }
+        if (entry.lastModified != file.lastModified() || entry.length != file.length()) {
+            remove(key);
+            misses++;
+            return null;
+        }
+        hits++;
+        return new NonogramMakerModel(entry.model);
+    }
+
+    /**
+     * Caches a copy of the model as the current contents of the specified file,
+     * for example right after the model was saved to it.
+     *
+     * @param file  The nonogram file.
+     * @param model The model matching the contents of the file.
+     */
+    public void put(File file, NonogramMakerModel model) {
+        put(file, file.lastModified(), file.length(), model);
+    }
+
+    /**
+     * Caches a copy of the model for the specified file version and evicts the
+     * least recently used entries until the cache fits its budget again. Models
+     * larger than the whole budget are not cached.
+     *
+     * @param file         The nonogram file.
+     * @param lastModified The modification time of the file.
+     * @param length       The size of the file in bytes.
+     * @param model        The model matching that version of the file.
+     */
+    private synchronized void put(File file, long lastModified, long length, NonogramMakerModel model) {
+        String key = keyOf(file);
+        remove(key);
+        CachedModel entry = new CachedModel(lastModified, length, new NonogramMakerModel(model));
+        if (entry.weight > maxBytes) {
+            return;
+        }
+        entries.put(key, entry);
+        usedBytes += entry.weight;
+
+        Iterator<Map.Entry<String, CachedModel>> it = entries.entrySet().iterator();
+        while (usedBytes > maxBytes && it.hasNext()) {
+            usedBytes -= it.next().getValue().weight;
+            it.remove();
+        }
+    }
+
+    /**
+     * Removes all entries from the cache.
+     */
+    public synchronized void clear() {
+        entries.clear();
+        usedBytes = 0;
+    }
+
+    /**
+     * Returns the number of cached models.
+     *
+     * @return The number of cached models.
+     */
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    /**
+     * Returns the estimated memory used by the cached models.
+     *
+     * @return The estimated memory use in bytes.
+     */
+    public synchronized long getUsedBytes() {
+        return usedBytes;
+    }
+
+    /**
+     * Returns the number of lookups that were served from the cache.
+     *
+     * @return The number of cache hits.
+     */
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    /**
+     * Returns the number of lookups that had to read the file.
+     *
+     * @return The number of cache misses.
+     */
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    /**
+     * Removes the entry with the specified key, if present.
+     *
+     * @param key The cache key.
+     */
+    private void remove(String key) {
+        CachedModel removed = entries.remove(key);
+        if (removed != null) {
+            usedBytes -= removed.weight;
+        }
+    }
+
+    /**
+     * Returns the cache key of the specified file.
+     *
+     * @param file The nonogram file.
+     * @return The absolute path of the file.
+     */
+    private static String keyOf(File file) {
+        return file.getAbsolutePath();
+    }
+
+    /**
+     * Estimates the memory used by the specified model.
+     *
+     * @param model The model.
+     * @return The estimated memory use in bytes.
+     */
+    private static long weigh(NonogramMakerModel model) {
+        return ENTRY_OVERHEAD_BYTES + (long) model.getNumRows() * model.getNumCols();
+    }
+}
@@ -0,0 +1,266 @@
+package hellofx.models;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.IntStream;
+
+/**
+ * The NonogramDiff class represents the differences between two nonogram grids
+ * of the same size. Rows of both grids are packed into 64-bit words and XORed,
+ * so every set bit marks a changed cell and whole unchanged words are skipped
+ * with a single comparison. Rows are compared in parallel. The clues of the
+ * rows and columns containing changed cells are compared through the cached
+ * clue projections of both grids.
+ */
+public class NonogramDiff {
+    private int numRows;
+    private int rowWords;
+    private long[] changes;
+    private long changedCells;
+    private List<Integer> changedRows;
+    private List<Integer> changedCols;
+    private List<Integer> changedRowClues;
+    private List<Integer> changedColClues;
+
+    /**
+     * Computes the differences between two grids.
+     *
+     * @param base  The original grid.
+     * @param other The changed grid.
+     * @throws IllegalArgumentException if the grids differ in size.
+     */
+    public NonogramDiff(NonogramMakerModel base, NonogramMakerModel other) {
+        checkSize(base, other);
+        numRows = base.getNumRows();
+        rowWords = base.getRowWords();
+        changes = new long[numRows * rowWords];
+        if (base.getContentHash() != other.getContentHash() || !base.equals(other)) {
+            IntStream.range(0, numRows).parallel().forEach(r -> {
+                long[] a = new long[rowWords];
+                long[] b = new long[rowWords];
+                base.readRow(r, a);
+                other.readRow(r, b);
+                for (int w = 0; w < rowWords; w++) {
+                    changes[r * rowWords + w] = a[w] ^ b[w];
+                }
+            });
+        }
+
+        changedRows = new ArrayList<Integer>();
+        long[] colMask = new long[rowWords];
+        for (int r = 0; r < numRows; r++) {
+            long rowMask = 0;
+            for (int w = 0; w < rowWords; w++) {
+                long word = changes[r * rowWords + w];
+                rowMask |= word;
+                colMask[w] |= word;
+                changedCells += Long.bitCount(word);
+            }
+            if (rowMask != 0) {
+                changedRows.add(r);
+            }
+        }
+        changedCols = new ArrayList<Integer>();
+        for (int w = 0; w < rowWords; w++) {
+            for (long word = colMask[w]; word != 0; word &= word - 1) {
+                changedCols.add(w * Long.SIZE + Long.numberOfTrailingZeros(word));
+            }
+        }
+
+        changedRowClues = new ArrayList<Integer>();
+        changedColClues = new ArrayList<Integer>();
+        if (changedCells > 0) {
+            // The cached projections are computed in parallel, once per model,
+            // instead of striding the grid once per changed column
+            ClueProjection baseClues = base.getClues();
+            ClueProjection otherClues = other.getClues();
+            for (int r : changedRows) {
+                if (!baseClues.getRowClues(r).equals(otherClues.getRowClues(r))) {
+                    changedRowClues.add(r);
+                }
+            }
+            for (int c : changedCols) {
+                if (!baseClues.getColClues(c).equals(otherClues.getColClues(c))) {
+                    changedColClues.add(c);
+                }
+            }
+        }
+    }
+
+    /**
+     * Throws an exception unless two grids have the same size.
+     *
+     * @param a The first grid.
+     * @param b The second grid.
+     * @throws IllegalArgumentException if the grids differ in size.
+     */
+    private static void checkSize(NonogramMakerModel a, NonogramMakerModel b) {
+        if (a.getNumRows() != b.getNumRows() || a.getNumCols() != b.getNumCols()) {
+            throw new IllegalArgumentException();
+        }
+    }
+
+    /**
+     * Returns whether the cell at the specified row and column differs.
+     *
+     * @param rowIdx The index of the row.
+     * @param colIdx The index of the column.
+     * @return true if the cell changed.
+     */
+    public boolean isChanged(int rowIdx, int colIdx) {
+        return (changes[rowIdx * rowWords + (colIdx >>> 6)] >>> (colIdx & 63) & 1) != 0;
+    }
+
+    /**
+     * Returns whether the two grids are identical.
+     *
+     * @return true if no cell changed.
+     */
+    public boolean isEmpty() {
+        return changedCells == 0;
+    }
+
+    /**
+     * Returns the number of changed cells.
+     *
+     * @return The number of changed cells.
+     */
+    public long getChangedCells() {
+        return changedCells;
+    }
+
+    /**
+     * Returns the rows containing changed cells.
+     *
+     * @return An unmodifiable list of row indices in ascending order.
+     */
+    public List<Integer> getChangedRows() {
+        return Collections.unmodifiableList(changedRows);
+    }
+
+    /**
+     * Returns the columns containing changed cells.
+     *
+     * @return An unmodifiable list of column indices in ascending order.
+     */
+    public List<Integer> getChangedCols() {
+        return Collections.unmodifiableList(changedCols);
+    }
+
+    /**
+     * Returns the rows whose clues changed. A row can contain changed cells and
+     * still keep its clues, for example when a group moved.
+     *
+     * @return An unmodifiable list of row indices in ascending order.
+     */
+    public List<Integer> getChangedRowClues() {
+        return Collections.unmodifiableList(changedRowClues);
+    }
+
+    /**
+     * Returns the columns whose clues changed.
+     *
+     * @return An unmodifiable list of column indices in ascending order.
+     */
+    public List<Integer> getChangedColClues() {
+        return Collections.unmodifiableList(changedColClues);
+    }
+
+    /**
+     * Returns a one-line summary of the differences.
+     *
+     * @return The summary.
+     */
+    @Override
+    public String toString() {
+        return changedCells + " cells changed in " + changedRows.size() + " rows and " + changedCols.size()
+                + " columns; clues changed in " + changedRowClues.size() + " rows and " + changedColClues.size()
+                + " columns";
+    }
+
+    /**
+     * Merges the changes two authors made to copies of the same grid. Each cell
+     * takes the value of whichever side changed it. Because cells have only two
+     * states, two sides that both changed a cell always agree on its new value,
+     * so the merge never conflicts on a cell; rows edited by both sides are
+     * reported so the result can still be reviewed.
+     *
+     * @param base   The common original grid.
+     * @param ours   Our changed copy.
+     * @param theirs Their changed copy.
+     * @return The merged grid and the rows both sides edited.
+     * @throws IllegalArgumentException if the grids differ in size.
+     */
+    public static Merge merge(NonogramMakerModel base, NonogramMakerModel ours, NonogramMakerModel theirs) {
+        checkSize(base, ours);
+        checkSize(base, theirs);
+        int rowWords = base.getRowWords();
+        NonogramMakerModel merged = new NonogramMakerModel(ours);
+        List<Integer> overlappingRows = new ArrayList<Integer>();
+
+        long[] b = new long[rowWords];
+        long[] o = new long[rowWords];
+        long[] t = new long[rowWords];
+        for (int r = 0; r < base.getNumRows(); r++) {
+            base.readRow(r, b);
+            ours.readRow(r, o);
+            theirs.readRow(r, t);
+            boolean ourRow = false;
+            boolean theirRow = false;
+            for (int w = 0; w < rowWords; w++) {
+                long ourChanges = b[w] ^ o[w];
+                long theirChanges = b[w] ^ t[w];
+                ourRow |= ourChanges != 0;
+                theirRow |= theirChanges != 0;
+                // Take their changes to the cells we left alone
+                for (long word = theirChanges & ~ourChanges; word != 0; word &= word - 1) {
+                    int bit = Long.numberOfTrailingZeros(word);
+                    merged.setCell(r, w * Long.SIZE + bit, (t[w] >>> bit & 1) != 0);
+                }
+            }
+            if (ourRow && theirRow) {
+                overlappingRows.add(r);
+            }
+        }
+        return new Merge(merged, overlappingRows);
+    }
+
+    /**
+     * The Merge class represents the result of a three-way merge: the merged grid
+     * and the rows both sides edited.
+     */
+    public static class Merge {
+        private NonogramMakerModel model;
+        private List<Integer> overlappingRows;
+
+        /**
+         * Constructs a Merge result.
+         *
+         * @param model           The merged grid.
+         * @param overlappingRows The rows both sides edited.
+         */
+        private Merge(NonogramMakerModel model, List<Integer> overlappingRows) {
+            this.model = model;
+            this.overlappingRows = overlappingRows;
+        }
+
+        /**
+         * Returns the merged grid.
+         *
+         * @return The merged grid.
+         */
+        public NonogramMakerModel getModel() {
+            return model;
+        }
+
+        /**
+         * Returns the rows in which both sides changed cells.
+         *
+         * @return An unmodifiable list of row indices in ascending order.
+         */
+        public List<Integer> getOverlappingRows() {
+            return Collections.unmodifiableList(overlappingRows);
+        }
+    }
+}
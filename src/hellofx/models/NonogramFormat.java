@@ -0,0 +1,305 @@
+package hellofx.models;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * The NonogramFormat class holds the stream helpers shared by the nonogram
+ * text formats. Besides the plain format, where each grid row is written as
+ * one character per cell, grids can be written with run-length encoded rows:
+ * the header line starts with RLE, and each row is a list of run lengths that
+ * alternate between empty and filled cells, starting with empty cells. A final
+ * run of empty cells is left out, so an empty row is an empty line. Either
+ * format can be gzip compressed; compressed files are recognized by their
+ * content when read and by the .gz extension when written.
+ */
+public final class NonogramFormat {
+    public static final String RLE_HEADER = "RLE";
+    public static final String RLE_EXTENSION = ".rle";
+    public static final String GZIP_EXTENSION = ".gz";
+
+    static final char FILLED_CELL_CHAR = '1';
+    static final char EMPTY_CELL_CHAR = '0';
+
+    private static final int GZIP_MAGIC = 0x1f8b;
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    /**
+     * NonogramFormat only has static members.
+     */
+    private NonogramFormat() {
+    }
+
+    /**
+     * Opens a nonogram file for reading, decompressing it if it is gzip
+     * compressed.
+     *
+     * @param file The nonogram file.
+     * @return A reader over the text of the file.
+     * @throws IOException if an I/O error occurs while opening the file.
+     */
+    public static BufferedReader openReader(File file) throws IOException {
+        InputStream in = new BufferedInputStream(new FileInputStream(file), BUFFER_SIZE);
+        try {
+            in.mark(2);
+            int magic = in.read() << 8 | in.read();
+            in.reset();
+            if (magic == GZIP_MAGIC) {
+                in = new GZIPInputStream(in, BUFFER_SIZE);
+            }
+        } catch (IOException e) {
+            in.close();
+            throw e;
+        }
+        return new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8), BUFFER_SIZE);
+    }
+
+    /**
+     * Returns whether a file is gzip compressed, judging by its first two bytes.
+     *
+     * @param file The nonogram file.
+     * @return true if the file starts with the gzip magic number.
+     * @throws IOException if an I/O error occurs while reading the file.
+     */
+    public static boolean isGzip(File file) throws IOException {
+        InputStream in = new FileInputStream(file);
+        try {
+            return (in.read() << 8 | in.read()) == GZIP_MAGIC;
+        } finally {
+            in.close();
+        }
+    }
+
+    /**
+     * Opens a nonogram file for writing, compressing it if its name ends in .gz.
+     *
+     * @param filename The name of the file.
+     * @return A writer to the file.
+     * @throws IOException if an I/O error occurs while opening the file.
+     */
+    public static BufferedWriter openWriter(String filename) throws IOException {
+        OutputStream out = new FileOutputStream(filename);
+        if (filename.endsWith(GZIP_EXTENSION)) {
+            out = new GZIPOutputStream(out, BUFFER_SIZE);
+        }
+        return new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), BUFFER_SIZE);
+    }
+
+    /**
+     * Returns whether a file should be written with run-length encoded rows,
+     * judging by its name: puzzle.rle and puzzle.rle.gz are, puzzle.txt and
+     * puzzle.txt.gz are not.
+     *
+     * @param filename The name of the file.
+     * @return true if the name ends in .rle, before any .gz.
+     */
+    public static boolean isRle(String filename) {
+        return stripGzip(filename).endsWith(RLE_EXTENSION);
+    }
+
+    /**
+     * Removes the .gz extension from a file name, if present.
+     *
+     * @param filename The name of the file.
+     * @return The name without .gz.
+     */
+    public static String stripGzip(String filename) {
+        if (filename.endsWith(GZIP_EXTENSION)) {
+            return filename.substring(0, filename.length() - GZIP_EXTENSION.length());
+        }
+        return filename;
+    }
+
+    /**
+     * Parses the header line of a nonogram file.
+     *
+     * @param header The first line of the file, or null if the file is empty.
+     * @return The number of rows, the number of columns, and 1 if the rows are
+     *         run-length encoded or 0 if not; null if the line is not a valid
+     *         header.
+     */
+    public static int[] parseDimensions(String header) {
+        if (header == null) {
+            return null;
+        }
+        String[] numbers = header.trim().split(" ");
+        boolean rle = numbers.length == 3 && numbers[0].equals(RLE_HEADER);
+        if (numbers.length != (rle ? 3 : 2)) {
+            return null;
+        }
+        try {
+            int numRows = Integer.parseInt(numbers[rle ? 1 : 0]);
+            int numCols = Integer.parseInt(numbers[rle ? 2 : 1]);
+            return numRows < 1 || numCols < 1 ? null : new int[] { numRows, numCols, rle ? 1 : 0 };
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Reads the first line of a nonogram file, without reading the rest of the
+     * file.
+     *
+     * @param file The nonogram file.
+     * @return The first line, or null if the file is empty.
+     * @throws IOException if an I/O error occurs while reading the file.
+     */
+    public static String readHeader(File file) throws IOException {
+        BufferedReader reader = openReader(file);
+        try {
+            return reader.readLine();
+        } finally {
+            reader.close();
+        }
+    }
+
+    /**
+     * Reads the dimensions of a nonogram file from its header, without reading
+     * the rest of the file.
+     *
+     * @param file The nonogram file.
+     * @return The dimensions as returned by parseDimensions, or null if the file
+     *         does not start with a valid header.
+     * @throws IOException if an I/O error occurs while reading the file.
+     */
+    public static int[] readDimensions(File file) throws IOException {
+        return parseDimensions(readHeader(file));
+    }
+
+    /**
+     * Writes the header line holding the dimensions of a grid.
+     *
+     * @param writer  The writer to write to.
+     * @param numRows The number of rows in the grid.
+     * @param numCols The number of columns in the grid.
+     * @param rle     Whether the rows will be run-length encoded.
+     * @throws IOException if an I/O error occurs while writing.
+     */
+    static void writeHeader(Writer writer, int numRows, int numCols, boolean rle) throws IOException {
+        if (rle) {
+            writer.write(RLE_HEADER + " ");
+        }
+        writer.write(numRows + " " + numCols + "\n");
+    }
+
+    /**
+     * Writes one line of clues separated by spaces.
+     *
+     * @param writer The writer to write to.
+     * @param clues  The clues of a row or column.
+     * @throws IOException if an I/O error occurs while writing.
+     */
+    static void writeClues(Writer writer, List<Integer> clues) throws IOException {
+        for (int i = 0; i < clues.size(); i++) {
+            if (i > 0) {
+                writer.write(' ');
+            }
+            writer.write(Integer.toString(clues.get(i)));
+        }
+        writer.write('\n');
+    }
+
+    /**
+     * Writes one grid row in either format, without a line break.
+     *
+     * @param writer The writer to write to.
+     * @param cells  The array holding the row.
+     * @param start  The index of the first cell of the row.
+     * @param length The number of cells in the row.
+     * @param rle    Whether to write the row run-length encoded.
+     * @param line   A buffer of at least length characters for a plain row.
+     * @throws IOException if an I/O error occurs while writing.
+     */
+    static void writeRow(Writer writer, boolean[] cells, int start, int length, boolean rle, char[] line)
+            throws IOException {
+        if (rle) {
+            writeRleRow(writer, cells, start, length);
+            return;
+        }
+        for (int c = 0; c < length; c++) {
+            line[c] = cells[start + c] ? FILLED_CELL_CHAR : EMPTY_CELL_CHAR;
+        }
+        writer.write(line, 0, length);
+    }
+
+    /**
+     * Writes one run-length encoded row, without a line break.
+     *
+     * @param writer The writer to write to.
+     * @param cells  The array holding the row.
+     * @param start  The index of the first cell of the row.
+     * @param length The number of cells in the row.
+     * @throws IOException if an I/O error occurs while writing.
+     */
+    static void writeRleRow(Writer writer, boolean[] cells, int start, int length) throws IOException {
+        int end = start + length;
+        boolean filled = false;
+        boolean first = true;
+        int i = start;
+        while (i < end) {
+            int runStart = i;
+            while (i < end && cells[i] == filled) {
+                i++;
+            }
+            if (i == end && !filled) {
+                // The final run of empty cells is implied
+                break;
+            }
+            if (!first) {
+                writer.write(' ');
+            }
+            writer.write(Integer.toString(i - runStart));
+            first = false;
+            filled = !filled;
+        }
+    }
+
+    /**
+     * Reads one run-length encoded row into an array. Cells after the last run
+     * are left empty.
+     *
+     * @param line   The text of the row.
+     * @param cells  The array receiving the row.
+     * @param start  The index of the first cell of the row.
+     * @param length The number of cells in the row.
+     * @throws IllegalArgumentException if the runs are longer than the row.
+     */
+    static void readRleRow(String line, boolean[] cells, int start, int length) {
+        int i = start;
+        int end = start + length;
+        boolean filled = false;
+        int pos = 0;
+        while (pos < line.length()) {
+            int next = line.indexOf(' ', pos);
+            if (next < 0) {
+                next = line.length();
+            }
+            int run = Integer.parseInt(line.substring(pos, next));
+            if (run < 0 || run > end - i) {
+                throw new IllegalArgumentException();
+            }
+            if (filled) {
+                for (int j = i; j < i + run; j++) {
+                    cells[j] = true;
+                }
+            }
+            i += run;
+            filled = !filled;
+            pos = next + 1;
+        }
+    }
+}
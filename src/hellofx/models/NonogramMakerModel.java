@@ -2,25 +2,34 @@ package hellofx.models;
 
 import java.io.BufferedReader;
 import java.io.File;
-import java.io.FileReader;
-import java.io.FileWriter;
 import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.io.BufferedWriter;
 
+import hellofx.metrics.Metrics;
+import hellofx.metrics.ModelParseEvent;
+import hellofx.metrics.ModelSaveEvent;
+
 /**
  * The NonogramMakerModel class represents a nonogram puzzle grid and provides
  * methods for manipulating and saving the grid.
  */
 public class NonogramMakerModel {
-    private static char FILLED_CELL_CHAR = '1';
-    private static char EMPTY_CELL_CHAR = '0';
+    private static String HASH_PREFIX = "# hash ";
+    /** Bytes at the end of a file searched for the hash line, which is 23 long. */
+    private static int HASH_TRAILER_BYTES = 64;
 
     private boolean[] grid;
     private int numRows;
     private int numCols;
+    private long hash;
+    private ClueProjection clues;
 
     /**
      * Constructs a NonogramMakerModel object with the specified number of rows and
@@ -51,20 +60,28 @@ public class NonogramMakerModel {
      *                                  than 1.
      */
     public NonogramMakerModel(File file) throws IOException {
-        BufferedReader reader = new BufferedReader(new FileReader(file));
+        ModelParseEvent event = new ModelParseEvent();
+        event.begin();
+        long start = System.nanoTime();
+        BufferedReader reader = NonogramFormat.openReader(file);
+        boolean rle = false;
         String line = reader.readLine();
         if (line != null) {
             String[] numbers = line.split(" ");
+            if (numbers.length == 3 && numbers[0].equals(NonogramFormat.RLE_HEADER)) {
+                rle = true;
+                numbers = Arrays.copyOfRange(numbers, 1, 3);
+            }
             if (numbers.length == 2) {
                 this.numRows = Integer.parseInt(numbers[0]);
                 this.numCols = Integer.parseInt(numbers[1]);
             }
         }
-        grid = new boolean[numRows * numCols];
         if (numCols < 1 || numRows < 1) {
             reader.close();
             throw new IllegalArgumentException();
         }
+        grid = new boolean[numRows * numCols];
         for (int i = 0; i < numCols + numRows; i++) {
             reader.readLine();
         }
@@ -72,12 +89,29 @@ public class NonogramMakerModel {
         int count = 0;
         for (int r = 0; r < numRows; r++) {
             line = reader.readLine();
+            if (rle) {
+                NonogramFormat.readRleRow(line == null ? "" : line, grid, count, numCols);
+            } else {
+                for (int c = 0; c < numCols; c++) {
+                    grid[count + c] = line.charAt(c) == NonogramFormat.FILLED_CELL_CHAR;
+                }
+            }
             for (int c = 0; c < numCols; c++) {
-                grid[count] = line.charAt(c) == FILLED_CELL_CHAR;
+                if (grid[count]) {
+                    hash ^= zobristKey(count);
+                }
                 count++;
             }
         }
         reader.close();
+
+        long bytes = file.length();
+        event.numRows = numRows;
+        event.numCols = numCols;
+        event.bytes = bytes;
+        event.commit();
+        Metrics.recordDuration("model.parse", start);
+        Metrics.counter("model.parse.bytes").add(bytes);
     }
 
     /**
@@ -94,6 +128,20 @@ public class NonogramMakerModel {
         this(new File(filename));
     }
 
+    /**
+     * Constructs a NonogramMakerModel object that is a copy of another model.
+     * The clues are not carried over; the copy projects them again when they
+     * are first needed.
+     *
+     * @param other The model to copy.
+     */
+    public NonogramMakerModel(NonogramMakerModel other) {
+        this.numRows = other.numRows;
+        this.numCols = other.numCols;
+        this.grid = Arrays.copyOf(other.grid, other.grid.length);
+        this.hash = other.hash;
+    }
+
     /**
      * Returns a copy of the nonogram grid.
      *
@@ -119,6 +167,7 @@ public class NonogramMakerModel {
 
     /**
      * Sets the value of the cell at the specified row and column.
+     * The content hash is updated in constant time.
      *
      * @param rowIdx The index of the row.
      * @param colIdx The index of the column.
@@ -128,7 +177,185 @@ public class NonogramMakerModel {
         int l = rowIdx;
         l = l * numCols;
         l = l + colIdx;
-        grid[l] = value;
+        if (grid[l] != value) {
+            hash ^= zobristKey(l);
+            grid[l] = value;
+            clues = null;
+        }
+    }
+
+    /**
+     * Returns the number of 64-bit words each row is packed into by readRow.
+     *
+     * @return The number of words per row.
+     */
+    public int getRowWords() {
+        return (numCols + Long.SIZE - 1) / Long.SIZE;
+    }
+
+    /**
+     * Packs a row into 64-bit words, with bit c of word c / 64 holding the cell
+     * in column c. Bits past the last column are cleared.
+     *
+     * @param rowIdx The index of the row.
+     * @param words  The array receiving the row, at least getRowWords() long.
+     */
+    public void readRow(int rowIdx, long[] words) {
+        int start = rowIdx * numCols;
+        for (int w = 0, c = 0; c < numCols; w++) {
+            long word = 0;
+            int end = Math.min(numCols, c + Long.SIZE);
+            for (int bit = 0; c < end; c++, bit++) {
+                if (grid[start + c]) {
+                    word |= 1L << bit;
+                }
+            }
+            words[w] = word;
+        }
+    }
+
+    /**
+     * Returns a 64-bit hash of the grid and its dimensions. The hash is the XOR
+     * of a fixed pseudo-random key for every filled cell (Zobrist hashing), so it
+     * is maintained incrementally as cells change and costs nothing to read.
+     *
+     * @return The content hash of the nonogram grid.
+     */
+    public long getContentHash() {
+        return contentHash(hash, numRows, numCols);
+    }
+
+    /**
+     * Combines the XOR of the Zobrist keys of all filled cells with the grid
+     * dimensions into a content hash.
+     *
+     * @param cellHash The XOR of the keys of all filled cells.
+     * @param numRows  The number of rows in the grid.
+     * @param numCols  The number of columns in the grid.
+     * @return The content hash.
+     */
+    static long contentHash(long cellHash, int numRows, int numCols) {
+        return mix(cellHash ^ mix(((long) numRows << 32) | numCols));
+    }
+
+    /**
+     * Returns the Zobrist key of the cell at the specified row-major index.
+     * Keys are derived from the index instead of being stored in a table.
+     *
+     * @param index The row-major index of the cell.
+     * @return The key of the cell.
+     */
+    static long zobristKey(long index) {
+        return mix(index + 1);
+    }
+
+    /**
+     * Scrambles a 64-bit value with the SplitMix64 finalizer.
+     *
+     * @param value The value to scramble.
+     * @return The scrambled value.
+     */
+    private static long mix(long value) {
+        long z = value * 0x9e3779b97f4a7c15L;
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+
+    /**
+     * Returns the line recording a content hash in a saved nonogram file.
+     *
+     * @param contentHash The content hash.
+     * @return The hash line, without a line separator.
+     */
+    static String hashLine(long contentHash) {
+        return HASH_PREFIX + String.format("%016x", contentHash);
+    }
+
+    /**
+     * Reads the content hash recorded in a saved nonogram file without building
+     * the grid. The hash line is the last line of the file and has a fixed
+     * length, so only the end of an uncompressed file is read; compressed files
+     * have to be decompressed up to their last line.
+     *
+     * @param file The nonogram file.
+     * @return The recorded content hash, or null if the file has none.
+     * @throws IOException if an I/O error occurs while reading the file.
+     */
+    public static Long readContentHash(File file) throws IOException {
+        String tail;
+        if (NonogramFormat.isGzip(file)) {
+            tail = readLastLine(file);
+        } else {
+            RandomAccessFile in = new RandomAccessFile(file, "r");
+            try {
+                byte[] bytes = new byte[(int) Math.min(in.length(), HASH_TRAILER_BYTES)];
+                in.seek(in.length() - bytes.length);
+                in.readFully(bytes);
+                tail = new String(bytes, StandardCharsets.UTF_8);
+            } finally {
+                in.close();
+            }
+        }
+        int index = tail == null ? -1 : tail.lastIndexOf(HASH_PREFIX);
+        if (index < 0) {
+            return null;
+        }
+        return Long.parseUnsignedLong(tail.substring(index + HASH_PREFIX.length()).trim(), 16);
+    }
+
+    /**
+     * Returns the last non-empty line of a nonogram file.
+     *
+     * @param file The nonogram file.
+     * @return The last non-empty line, or null if the file is empty.
+     * @throws IOException if an I/O error occurs while reading the file.
+     */
+    private static String readLastLine(File file) throws IOException {
+        BufferedReader reader = NonogramFormat.openReader(file);
+        try {
+            String last = null;
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (!line.trim().isEmpty()) {
+                    last = line;
+                }
+            }
+            return last;
+        } finally {
+            reader.close();
+        }
+    }
+
+    /**
+     * Returns whether the specified object is a model with the same dimensions
+     * and cells. Models with different content hashes are told apart without
+     * looking at their cells.
+     *
+     * @param o The object to compare with.
+     * @return true if the object is an equal model.
+     */
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof NonogramMakerModel)) {
+            return false;
+        }
+        NonogramMakerModel other = (NonogramMakerModel) o;
+        return numRows == other.numRows && numCols == other.numCols && hash == other.hash
+                && Arrays.equals(grid, other.grid);
+    }
+
+    /**
+     * Returns a hash code derived from the content hash.
+     *
+     * @return The hash code.
+     */
+    @Override
+    public int hashCode() {
+        return Long.hashCode(getContentHash());
     }
 
     /**
@@ -168,12 +395,47 @@ public class NonogramMakerModel {
                 list.add(count);
             }
         }
-        if (list.size() == 0) {
-            list.add(0);
+        endClues(list, 0);
+        return list;
+    }
+
+    /**
+     * Projects the filled cells of a packed row, with bit c of word c / 64
+     * holding cell c, and returns the lengths of the consecutive filled cell
+     * groups.
+     *
+     * @param words  The packed row.
+     * @param length The number of cells in the row.
+     * @return A list of the lengths of the consecutive filled cell groups.
+     */
+    static List<Integer> projectWords(long[] words, int length) {
+        List<Integer> list = new ArrayList<Integer>();
+        int run = 0;
+        for (int c = 0; c < length; c++) {
+            if ((words[c >>> 6] & (1L << (c & 63))) != 0) {
+                run++;
+            } else if (run > 0) {
+                list.add(run);
+                run = 0;
+            }
         }
+        endClues(list, run);
         return list;
     }
 
+    /**
+     * Completes the clues of a line: adds the group the line ends with, if any,
+     * and a single 0 if the line has no filled cells.
+     *
+     * @param clues The clues found so far.
+     * @param run   The length of the group of filled cells ending the line.
+     */
+    static void endClues(List<Integer> clues, int run) {
+        if (run > 0 || clues.isEmpty()) {
+            clues.add(run);
+        }
+    }
+
     /**
      * Projects the filled cells in the specified row and returns a list of the
      * lengths of the consecutive filled cell groups.
@@ -212,14 +474,58 @@ public class NonogramMakerModel {
 
     /**
      * Saves the nonogram grid to a file with the specified filename.
+     * The content hash is recorded on a line after the grid. Files named .rle
+     * are written with run-length encoded rows, and files named .gz are gzip
+     * compressed. The file is written as a stream, one line at a time.
      *
      * @param filename The name of the file to save the nonogram grid to.
      * @throws IOException if an I/O error occurs while writing to the file.
      */
     public void saveToFile(String filename) throws IOException {
-        BufferedWriter writer = new BufferedWriter(new FileWriter(filename));
-        writer.write(toString());
-        writer.close();
+        ModelSaveEvent event = new ModelSaveEvent();
+        event.begin();
+        long start = System.nanoTime();
+
+        BufferedWriter writer = NonogramFormat.openWriter(filename);
+        try {
+            write(writer, NonogramFormat.isRle(filename));
+            writer.write('\n');
+            writer.write(hashLine(getContentHash()));
+        } finally {
+            writer.close();
+        }
+
+        long bytes = new File(filename).length();
+        event.numRows = numRows;
+        event.numCols = numCols;
+        event.bytes = bytes;
+        event.commit();
+        Metrics.recordDuration("model.save", start);
+        Metrics.counter("model.save.bytes").add(bytes);
+    }
+
+    /**
+     * Returns the clues of all rows and columns. The clues are computed in
+     * parallel on first use and reused until a cell changes.
+     *
+     * @return The clue projection of the nonogram grid.
+     */
+    public ClueProjection getClues() {
+        if (clues == null) {
+            clues = new ClueProjection(grid, numRows, numCols);
+        }
+        return clues;
+    }
+
+    /**
+     * Returns whether this grid has the same row and column clues as another,
+     * that is, whether either grid is a valid solution of the other's puzzle.
+     *
+     * @param other The model to compare clues with.
+     * @return true if all row and column clues are equal.
+     */
+    public boolean hasSameClues(NonogramMakerModel other) {
+        return getClues().equals(other.getClues());
     }
 
     /**
@@ -228,30 +534,41 @@ public class NonogramMakerModel {
      * @return A string representation of the nonogram grid.
      */
     public String toString() {
-        String s = "";
+        StringWriter s = new StringWriter(2 * grid.length + 16);
+        try {
+            write(s, false);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+        return s.toString();
+    }
 
-        s += numRows + " " + numCols + "\n";
+    /**
+     * Writes the dimensions, the clues and the grid, without a line break after
+     * the last row.
+     *
+     * @param writer The writer to write to.
+     * @param rle    Whether to write the rows run-length encoded.
+     * @throws IOException if an I/O error occurs while writing.
+     */
+    private void write(Writer writer, boolean rle) throws IOException {
+        ClueProjection projection = getClues();
+        NonogramFormat.writeHeader(writer, numRows, numCols, rle);
 
         for (int r = 0; r < numRows; r++) {
-            s += projectRow(r).toString() + "\n";
+            NonogramFormat.writeClues(writer, projection.getRowClues(r));
         }
 
         for (int c = 0; c < numCols; c++) {
-            s += projectCol(c).toString() + "\n";
+            NonogramFormat.writeClues(writer, projection.getColClues(c));
         }
 
+        char[] line = new char[numCols];
         for (int r = 0; r < numRows; r++) {
-            String row = "";
-            for (int c = 0; c < numCols; c++) {
-                if (getCell(r, c)) {
-                    row += FILLED_CELL_CHAR;
-                } else {
-                    row += EMPTY_CELL_CHAR;
-                }
+            if (r > 0) {
+                writer.write('\n');
             }
-            s += row + "\n";
+            NonogramFormat.writeRow(writer, grid, r * numCols, numCols, rle, line);
         }
-        s = s.substring(0, s.length() - 1);
-        return s.replaceAll("[\\[\\],/]", "");
     }
 }
@@ -0,0 +1,480 @@
+package hellofx.models;
+
+import java.awt.Color;
+import java.awt.Font;
+import java.awt.FontMetrics;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferByte;
+import java.io.BufferedOutputStream;
+import java.io.BufferedWriter;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+
+/**
+ * The PuzzleExporter class renders a nonogram puzzle, with its clues in the
+ * margins, to PNG or SVG images. Rendering works directly from the model
+ * instead of the scene graph. PNG images are drawn in fixed-size tiles whose
+ * scanlines are compressed and written as soon as a band of tiles is done. The
+ * band is made shorter for wider images so that it never exceeds a fixed
+ * number of bytes; images too wide for even two scanlines to fit are written
+ * one scanline at a time, straight from the tiles, so memory stays bounded
+ * however large the image is.
+ */
+public class PuzzleExporter {
+    public static final int TILE_WIDTH = 256;
+    public static final int TILE_HEIGHT = 64;
+
+    private static final byte[] PNG_SIGNATURE = { (byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1a, '\n' };
+    private static final int IDAT_CHUNK_SIZE = 64 * 1024;
+    private static final long BAND_BYTES = 4L * 1024 * 1024;
+    private static final double METERS_PER_INCH = 0.0254;
+    private static final int GRID_LINE_GRAY = 0x80;
+
+    private int cellSize;
+    private int dpi;
+
+    /**
+     * Constructs a PuzzleExporter with the specified cell size and resolution.
+     *
+     * @param cellSize The size of each cell, and each clue, in pixels.
+     * @param dpi      The resolution recorded in the exported images.
+     * @throws IllegalArgumentException if the cell size is less than 4 or the
+     *                                  resolution is less than 1.
+     */
+    public PuzzleExporter(int cellSize, int dpi) {
+        if (cellSize < 4 || dpi < 1) {
+            throw new IllegalArgumentException();
+        }
+        this.cellSize = cellSize;
+        this.dpi = dpi;
+    }
+
+    /**
+     * Exports the model to the specified file, choosing PNG or SVG by the file
+     * extension.
+     *
+     * @param model The model to export.
+     * @param file  The file to write.
+     * @throws IOException              if an I/O error occurs while writing.
+     * @throws IllegalArgumentException if the extension is neither .png nor .svg.
+     */
+    public void export(NonogramMakerModel model, File file) throws IOException {
+        String name = file.getName().toLowerCase();
+        if (name.endsWith(".png")) {
+            exportPng(model, file);
+        } else if (name.endsWith(".svg")) {
+            exportSvg(model, file);
+        } else {
+            throw new IllegalArgumentException(file.getName());
+        }
+    }
+
+    /**
+     * Exports the model to a grayscale PNG file.
+     *
+     * @param model The model to export.
+     * @param file  The file to write.
+     * @throws IOException              if an I/O error occurs while writing.
+     * @throws IllegalArgumentException if the image would be too large for PNG.
+     */
+    public void exportPng(NonogramMakerModel model, File file) throws IOException {
+        Layout layout = new Layout(model);
+        int width = layout.width;
+        int height = layout.height;
+
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file)));
+        try {
+            out.write(PNG_SIGNATURE);
+            ByteArrayOutputStream header = new ByteArrayOutputStream();
+            DataOutputStream headerData = new DataOutputStream(header);
+            headerData.writeInt(width);
+            headerData.writeInt(height);
+            headerData.writeByte(8); // bit depth
+            headerData.writeByte(0); // grayscale
+            headerData.writeByte(0); // deflate
+            headerData.writeByte(0); // adaptive filtering
+            headerData.writeByte(0); // no interlace
+            writeChunk(out, "IHDR", header.toByteArray(), header.size());
+
+            header.reset();
+            int pixelsPerMeter = (int) Math.round(dpi / METERS_PER_INCH);
+            headerData.writeInt(pixelsPerMeter);
+            headerData.writeInt(pixelsPerMeter);
+            headerData.writeByte(1); // meters
+            writeChunk(out, "pHYs", header.toByteArray(), header.size());
+
+            Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+            DeflaterOutputStream idat = new DeflaterOutputStream(new IdatOutputStream(out), deflater,
+                    IDAT_CHUNK_SIZE);
+            BufferedImage tile = new BufferedImage(TILE_WIDTH, TILE_HEIGHT, BufferedImage.TYPE_BYTE_GRAY);
+            byte[] tilePixels = ((DataBufferByte) tile.getRaster().getDataBuffer()).getData();
+            // Each scanline is one filter type byte followed by the pixels
+            long scanlineBytes = (long) width + 1;
+            int bandRows = (int) Math.max(1, Math.min(TILE_HEIGHT, BAND_BYTES / scanlineBytes));
+            byte[] band = bandRows > 1 ? new byte[(int) (scanlineBytes * bandRows)] : null;
+            Font font = clueFont();
+
+            for (int y0 = 0; y0 < height; y0 += bandRows) {
+                int bandHeight = Math.min(bandRows, height - y0);
+                if (band == null) {
+                    idat.write(0);
+                }
+                for (int x0 = 0; x0 < width; x0 += TILE_WIDTH) {
+                    renderTile(tile, font, layout, x0, y0);
+                    int tileWidth = Math.min(TILE_WIDTH, width - x0);
+                    if (band == null) {
+                        // A single scanline is written piece by piece as the
+                        // tiles along it are drawn
+                        idat.write(tilePixels, 0, tileWidth);
+                        continue;
+                    }
+                    for (int y = 0; y < bandHeight; y++) {
+                        System.arraycopy(tilePixels, y * TILE_WIDTH, band, y * (width + 1) + 1 + x0, tileWidth);
+                    }
+                }
+                if (band != null) {
+                    // Every scanline starts with filter type 0, which the band
+                    // array already holds
+                    idat.write(band, 0, bandHeight * (width + 1));
+                }
+            }
+            idat.finish();
+            deflater.end();
+            idat.flush();
+            writeChunk(out, "IEND", new byte[0], 0);
+        } finally {
+            out.close();
+        }
+    }
+
+    /**
+     * Exports the model to an SVG file. Rows of the grid are written one after
+     * another, with consecutive filled cells merged into a single rectangle.
+     *
+     * @param model The model to export.
+     * @param file  The file to write.
+     * @throws IOException if an I/O error occurs while writing.
+     */
+    public void exportSvg(NonogramMakerModel model, File file) throws IOException {
+        Writer writer = new BufferedWriter(new FileWriter(file, StandardCharsets.UTF_8));
+        try {
+            writeSvg(model, writer);
+        } finally {
+            writer.close();
+        }
+    }
+
+    /**
+     * Writes the model as an SVG document.
+     *
+     * @param model  The model to export.
+     * @param writer The writer receiving the document.
+     * @throws IOException if an I/O error occurs while writing.
+     */
+    public void writeSvg(NonogramMakerModel model, Writer writer) throws IOException {
+        Layout layout = new Layout(model);
+        int numRows = model.getNumRows();
+        int numCols = model.getNumCols();
+        int gridX = layout.gridX;
+        int gridY = layout.gridY;
+
+        writer.write("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n");
+        writer.write("<svg xmlns=\"http://www.w3.org/2000/svg\" width=\"" + inches(layout.width) + "in\" height=\""
+                + inches(layout.height) + "in\" viewBox=\"0 0 " + layout.width + " " + layout.height + "\">\n");
+        writer.write("<rect width=\"100%\" height=\"100%\" fill=\"white\"/>\n");
+
+        writer.write("<g fill=\"black\">\n");
+        for (int r = 0; r < numRows; r++) {
+            int c = 0;
+            while (c < numCols) {
+                if (!model.getCell(r, c)) {
+                    c++;
+                    continue;
+                }
+                int start = c;
+                while (c < numCols && model.getCell(r, c)) {
+                    c++;
+                }
+                writer.write("<rect x=\"" + (gridX + start * cellSize) + "\" y=\"" + (gridY + r * cellSize)
+                        + "\" width=\"" + ((c - start) * cellSize) + "\" height=\"" + cellSize + "\"/>\n");
+            }
+        }
+        writer.write("</g>\n");
+
+        writer.write("<g stroke=\"gray\" stroke-width=\"1\">\n");
+        for (int r = 0; r <= numRows; r++) {
+            int y = gridY + r * cellSize;
+            writer.write("<line x1=\"" + gridX + "\" y1=\"" + y + "\" x2=\"" + (layout.width - 1) + "\" y2=\"" + y
+                    + "\"/>\n");
+        }
+        for (int c = 0; c <= numCols; c++) {
+            int x = gridX + c * cellSize;
+            writer.write("<line x1=\"" + x + "\" y1=\"" + gridY + "\" x2=\"" + x + "\" y2=\"" + (layout.height - 1)
+                    + "\"/>\n");
+        }
+        writer.write("</g>\n");
+
+        writer.write("<g font-family=\"sans-serif\" font-size=\"" + fontSize()
+                + "\" text-anchor=\"middle\" dominant-baseline=\"central\">\n");
+        for (int r = 0; r < numRows; r++) {
+            List<Integer> clues = layout.clues.getRowClues(r);
+            int y = gridY + r * cellSize + cellSize / 2;
+            for (int k = 0; k < clues.size(); k++) {
+                int x = gridX - (clues.size() - k) * cellSize + cellSize / 2;
+                writer.write("<text x=\"" + x + "\" y=\"" + y + "\">" + clues.get(k) + "</text>\n");
+            }
+        }
+        for (int c = 0; c < numCols; c++) {
+            List<Integer> clues = layout.clues.getColClues(c);
+            int x = gridX + c * cellSize + cellSize / 2;
+            for (int k = 0; k < clues.size(); k++) {
+                int y = gridY - (clues.size() - k) * cellSize + cellSize / 2;
+                writer.write("<text x=\"" + x + "\" y=\"" + y + "\">" + clues.get(k) + "</text>\n");
+            }
+        }
+        writer.write("</g>\n");
+        writer.write("</svg>\n");
+    }
+
+    /**
+     * Draws the part of the puzzle covered by one tile. Only the cells, grid
+     * lines and clues that intersect the tile are drawn.
+     *
+     * @param tile   The tile image to draw into.
+     * @param font   The font used for clues.
+     * @param layout The layout of the puzzle.
+     * @param x0     The x coordinate of the tile in the whole image.
+     * @param y0     The y coordinate of the tile in the whole image.
+     */
+    private void renderTile(BufferedImage tile, Font font, Layout layout, int x0, int y0) {
+        NonogramMakerModel model = layout.model;
+        int x1 = x0 + TILE_WIDTH;
+        int y1 = y0 + TILE_HEIGHT;
+        int gridX = layout.gridX;
+        int gridY = layout.gridY;
+
+        Graphics2D g = tile.createGraphics();
+        try {
+            g.setColor(Color.WHITE);
+            g.fillRect(0, 0, TILE_WIDTH, TILE_HEIGHT);
+            g.translate(-x0, -y0);
+
+            // Range of cells, extended by one so clue text spilling over its box
+            // is drawn in neighbouring tiles too
+            int rowFrom = Math.max(0, Math.floorDiv(y0 - gridY, cellSize) - 1);
+            int rowTo = Math.min(model.getNumRows() - 1, Math.floorDiv(y1 - gridY, cellSize) + 1);
+            int colFrom = Math.max(0, Math.floorDiv(x0 - gridX, cellSize) - 1);
+            int colTo = Math.min(model.getNumCols() - 1, Math.floorDiv(x1 - gridX, cellSize) + 1);
+
+            if (x1 > gridX && y1 > gridY) {
+                g.setColor(Color.BLACK);
+                for (int r = rowFrom; r <= rowTo; r++) {
+                    for (int c = colFrom; c <= colTo; c++) {
+                        if (model.getCell(r, c)) {
+                            g.fillRect(gridX + c * cellSize, gridY + r * cellSize, cellSize, cellSize);
+                        }
+                    }
+                }
+                g.setColor(new Color(GRID_LINE_GRAY, GRID_LINE_GRAY, GRID_LINE_GRAY));
+                for (int r = rowFrom; r <= rowTo + 1; r++) {
+                    int y = gridY + r * cellSize;
+                    g.drawLine(Math.max(gridX, x0), y, Math.min(layout.width - 1, x1), y);
+                }
+                for (int c = colFrom; c <= colTo + 1; c++) {
+                    int x = gridX + c * cellSize;
+                    g.drawLine(x, Math.max(gridY, y0), x, Math.min(layout.height - 1, y1));
+                }
+            }
+
+            g.setColor(Color.BLACK);
+            g.setFont(font);
+            g.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+            FontMetrics metrics = g.getFontMetrics();
+            // Clues are counted back from the grid edge, so only the ones whose
+            // boxes reach into the tile are drawn
+            if (x0 < gridX && y1 > gridY) {
+                for (int r = rowFrom; r <= rowTo; r++) {
+                    List<Integer> clues = layout.clues.getRowClues(r);
+                    int last = Math.min(clues.size(), Math.floorDiv(gridX - x0, cellSize) + 2);
+                    for (int i = Math.max(1, Math.floorDiv(gridX - x1, cellSize)); i <= last; i++) {
+                        drawClue(g, metrics, clues.get(clues.size() - i), gridX - i * cellSize,
+                                gridY + r * cellSize);
+                    }
+                }
+            }
+            if (y0 < gridY && x1 > gridX) {
+                for (int c = colFrom; c <= colTo; c++) {
+                    List<Integer> clues = layout.clues.getColClues(c);
+                    int last = Math.min(clues.size(), Math.floorDiv(gridY - y0, cellSize) + 2);
+                    for (int i = Math.max(1, Math.floorDiv(gridY - y1, cellSize)); i <= last; i++) {
+                        drawClue(g, metrics, clues.get(clues.size() - i), gridX + c * cellSize,
+                                gridY - i * cellSize);
+                    }
+                }
+            }
+        } finally {
+            g.dispose();
+        }
+    }
+
+    /**
+     * Draws a clue centered in the clue box at the specified position.
+     *
+     * @param g       The graphics to draw with.
+     * @param metrics The metrics of the clue font.
+     * @param clue    The clue to draw.
+     * @param x       The x coordinate of the clue box.
+     * @param y       The y coordinate of the clue box.
+     */
+    private void drawClue(Graphics2D g, FontMetrics metrics, int clue, int x, int y) {
+        String text = Integer.toString(clue);
+        int textX = x + (cellSize - metrics.stringWidth(text)) / 2;
+        int textY = y + (cellSize - metrics.getHeight()) / 2 + metrics.getAscent();
+        g.drawString(text, textX, textY);
+    }
+
+    /**
+     * Returns the font used for clues.
+     *
+     * @return The clue font.
+     */
+    private Font clueFont() {
+        return new Font(Font.SANS_SERIF, Font.PLAIN, fontSize());
+    }
+
+    /**
+     * Returns the size of the clue font in pixels.
+     *
+     * @return The font size.
+     */
+    private int fontSize() {
+        return Math.max(1, cellSize * 3 / 5);
+    }
+
+    /**
+     * Converts a length in pixels to inches at the export resolution.
+     *
+     * @param pixels The length in pixels.
+     * @return The length in inches.
+     */
+    private String inches(int pixels) {
+        return Double.toString((double) pixels / dpi);
+    }
+
+    /**
+     * Writes a PNG chunk.
+     *
+     * @param out    The stream to write to.
+     * @param type   The four letter chunk type.
+     * @param data   The chunk data.
+     * @param length The number of data bytes to write.
+     * @throws IOException if an I/O error occurs while writing.
+     */
+    private static void writeChunk(DataOutputStream out, String type, byte[] data, int length) throws IOException {
+        byte[] typeBytes = type.getBytes(StandardCharsets.US_ASCII);
+        CRC32 crc = new CRC32();
+        crc.update(typeBytes);
+        crc.update(data, 0, length);
+        out.writeInt(length);
+        out.write(typeBytes);
+        out.write(data, 0, length);
+        out.writeInt((int) crc.getValue());
+    }
+
+    /**
+     * The Layout class holds the size of the image and the position of the grid
+     * and clues within it.
+     */
+    private class Layout {
+        private NonogramMakerModel model;
+        private ClueProjection clues;
+        private int gridX;
+        private int gridY;
+        private int width;
+        private int height;
+
+        /**
+         * Computes the layout of the specified model.
+         *
+         * @param model The model to lay out.
+         * @throws IllegalArgumentException if the image would be too large.
+         */
+        Layout(NonogramMakerModel model) {
+            this.model = model;
+            this.clues = model.getClues();
+            int maxRowClues = clues.getMaxRowClues();
+            int maxColClues = clues.getMaxColClues();
+            long fullWidth = (long) (maxRowClues + model.getNumCols()) * cellSize + 1;
+            long fullHeight = (long) (maxColClues + model.getNumRows()) * cellSize + 1;
+            // Tile coordinates run up to one tile past the image edge
+            if (fullWidth > Integer.MAX_VALUE - TILE_WIDTH || fullHeight > Integer.MAX_VALUE - TILE_HEIGHT) {
+                throw new IllegalArgumentException("Image too large");
+            }
+            gridX = maxRowClues * cellSize;
+            gridY = maxColClues * cellSize;
+            width = (int) fullWidth;
+            height = (int) fullHeight;
+        }
+    }
+
+    /**
+     * The IdatOutputStream class splits compressed image data into IDAT chunks.
+     */
+    private static class IdatOutputStream extends OutputStream {
+        private DataOutputStream out;
+        private byte[] buffer = new byte[IDAT_CHUNK_SIZE];
+        private int count;
+
+        /**
+         * Constructs an IdatOutputStream writing chunks to the specified stream.
+         *
+         * @param out The stream receiving the chunks.
+         */
+        IdatOutputStream(DataOutputStream out) {
+            this.out = out;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            if (count == buffer.length) {
+                flush();
+            }
+            buffer[count++] = (byte) b;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            while (len > 0) {
+                if (count == buffer.length) {
+                    flush();
+                }
+                int n = Math.min(len, buffer.length - count);
+                System.arraycopy(b, off, buffer, count, n);
+                count += n;
+                off += n;
+                len -= n;
+            }
+        }
+
+        @Override
+        public void flush() throws IOException {
+            if (count > 0) {
+                writeChunk(out, "IDAT", buffer, count);
+                count = 0;
+            }
+        }
+    }
+}
@@ -0,0 +1,572 @@
+package hellofx.models;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * The PuzzleIndex class keeps an on-disk index of the nonogram puzzles found in
+ * a directory tree. Each entry records the metadata needed to browse a puzzle
+ * library (dimensions, density, content hash and a small thumbnail) so that the
+ * puzzles themselves only have to be parsed when they change.
+ */
+public class PuzzleIndex {
+    public static final String INDEX_FILE_NAME = ".nonogram-index";
+    public static final String PUZZLE_EXTENSION = ".txt";
+    public static final int THUMBNAIL_SIZE = 16;
+
+    private static final String INDEX_HEADER = "NONOGRAM-INDEX 3";
+    private static final String FIELD_SEPARATOR = "\t";
+
+    private File directory;
+    private File indexFile;
+    private Map<String, Entry> entries;
+    private WatchService watchService;
+    private Thread watchThread;
+
+    /**
+     * The Entry class holds the indexed metadata of a single puzzle file.
+     */
+    public static class Entry {
+        private String path;
+        private long lastModified;
+        private long length;
+        private int numRows;
+        private int numCols;
+        private double density;
+        private long contentHash;
+        private int thumbRows;
+        private int thumbCols;
+        private boolean[] thumbnail;
+
+        /**
+         * Constructs an Entry from already known metadata.
+         *
+         * @param path         The path of the puzzle file.
+         * @param lastModified The modification time of the file when indexed.
+         * @param length       The length of the file in bytes when indexed.
+         * @param numRows      The number of rows in the puzzle.
+         * @param numCols      The number of columns in the puzzle.
+         * @param density      The fraction of filled cells.
+         * @param contentHash  The content hash of the puzzle grid.
+         * @param thumbRows    The number of rows in the thumbnail.
+         * @param thumbCols    The number of columns in the thumbnail.
+         * @param thumbnail    The thumbnail cells in row-major order.
+         */
+        public Entry(String path, long lastModified, long length, int numRows, int numCols, double density,
+                long contentHash, int thumbRows, int thumbCols, boolean[] thumbnail) {
+            this.path = path;
+            this.lastModified = lastModified;
+            this.length = length;
+            this.numRows = numRows;
+            this.numCols = numCols;
+            this.density = density;
+            this.contentHash = contentHash;
+            this.thumbRows = thumbRows;
+            this.thumbCols = thumbCols;
+            this.thumbnail = thumbnail;
+        }
+
+        /**
+         * Builds an Entry by parsing the given puzzle file.
+         *
+         * @param file The puzzle file.
+         * @return The entry describing the puzzle.
+         * @throws IOException if an I/O error occurs while reading the file.
+         */
+        public static Entry fromFile(File file) throws IOException {
+            long lastModified = file.lastModified();
+            long length = file.length();
+            NonogramMakerModel model = new NonogramMakerModel(file);
+            int numRows = model.getNumRows();
+            int numCols = model.getNumCols();
+            int thumbRows = Math.min(numRows, THUMBNAIL_SIZE);
+            int thumbCols = Math.min(numCols, THUMBNAIL_SIZE);
+            boolean[] thumbnail = new boolean[thumbRows * thumbCols];
+
+            boolean[] grid = model.getGrid();
+            long filled = 0;
+            for (int r = 0; r < numRows; r++) {
+                int thumbRow = (int) ((long) r * thumbRows / numRows);
+                for (int c = 0; c < numCols; c++) {
+                    if (grid[r * numCols + c]) {
+                        filled++;
+                        int thumbCol = (int) ((long) c * thumbCols / numCols);
+                        thumbnail[thumbRow * thumbCols + thumbCol] = true;
+                    }
+                }
+            }
+            double density = (double) filled / grid.length;
+            return new Entry(file.getPath(), lastModified, length, numRows, numCols, density,
+                    model.getContentHash(), thumbRows, thumbCols, thumbnail);
+        }
+
+        /**
+         * Parses an Entry from a line of the index file.
+         *
+         * @param line The line to parse.
+         * @return The parsed entry.
+         * @throws IllegalArgumentException if the line is malformed.
+         */
+        static Entry fromLine(String line) {
+            String[] fields = line.split(FIELD_SEPARATOR);
+            if (fields.length != 10) {
+                throw new IllegalArgumentException(line);
+            }
+            int thumbRows = Integer.parseInt(fields[7]);
+            int thumbCols = Integer.parseInt(fields[8]);
+            boolean[] thumbnail = new boolean[thumbRows * thumbCols];
+            String bits = fields[9];
+            for (int i = 0; i < thumbnail.length; i++) {
+                int nibble = Character.digit(bits.charAt(i / 4), 16);
+                thumbnail[i] = (nibble & (8 >> (i % 4))) != 0;
+            }
+            return new Entry(fields[0], Long.parseLong(fields[1]), Long.parseLong(fields[2]),
+                    Integer.parseInt(fields[3]), Integer.parseInt(fields[4]), Double.parseDouble(fields[5]),
+                    Long.parseUnsignedLong(fields[6], 16), thumbRows, thumbCols, thumbnail);
+        }
+
+        /**
+         * Returns the line representing this entry in the index file.
+         *
+         * @return The index file line.
+         */
+        String toLine() {
+            StringBuilder bits = new StringBuilder();
+            for (int i = 0; i < thumbnail.length; i += 4) {
+                int nibble = 0;
+                for (int j = 0; j < 4; j++) {
+                    if (i + j < thumbnail.length && thumbnail[i + j]) {
+                        nibble |= 8 >> j;
+                    }
+                }
+                bits.append(Character.forDigit(nibble, 16));
+            }
+            return String.join(FIELD_SEPARATOR, path, Long.toString(lastModified), Long.toString(length),
+                    Integer.toString(numRows), Integer.toString(numCols), Double.toString(density),
+                    Long.toHexString(contentHash), Integer.toString(thumbRows), Integer.toString(thumbCols),
+                    bits.toString());
+        }
+
+        /**
+         * Returns the path of the puzzle file.
+         *
+         * @return The path of the puzzle file.
+         */
+        public String getPath() {
+            return path;
+        }
+
+        /**
+         * Returns the modification time of the file when it was indexed.
+         *
+         * @return The modification time in milliseconds since the epoch.
+         */
+        public long getLastModified() {
+            return lastModified;
+        }
+
+        /**
+         * Returns the length of the file when it was indexed.
+         *
+         * @return The length of the file in bytes.
+         */
+        public long getLength() {
+            return length;
+        }
+
+        /**
+         * Returns the number of rows in the puzzle.
+         *
+         * @return The number of rows.
+         */
+        public int getNumRows() {
+            return numRows;
+        }
+
+        /**
+         * Returns the number of columns in the puzzle.
+         *
+         * @return The number of columns.
+         */
+        public int getNumCols() {
+            return numCols;
+        }
+
+        /**
+         * Returns the fraction of filled cells in the puzzle.
+         *
+         * @return The density, between 0 and 1.
+         */
+        public double getDensity() {
+            return density;
+        }
+
+        /**
+         * Returns the content hash of the puzzle grid.
+         *
+         * @return The content hash.
+         */
+        public long getContentHash() {
+            return contentHash;
+        }
+
+        /**
+         * Returns the number of rows in the thumbnail.
+         *
+         * @return The number of thumbnail rows.
+         */
+        public int getThumbRows() {
+            return thumbRows;
+        }
+
+        /**
+         * Returns the number of columns in the thumbnail.
+         *
+         * @return The number of thumbnail columns.
+         */
+        public int getThumbCols() {
+            return thumbCols;
+        }
+
+        /**
+         * Returns whether the thumbnail cell at the specified row and column is
+         * filled.
+         *
+         * @param rowIdx The thumbnail row index.
+         * @param colIdx The thumbnail column index.
+         * @return true if any puzzle cell covered by the thumbnail cell is filled.
+         */
+        public boolean getThumbCell(int rowIdx, int colIdx) {
+            return thumbnail[rowIdx * thumbCols + colIdx];
+        }
+
+        /**
+         * Returns a short description of the puzzle.
+         *
+         * @return The file name followed by the dimensions and density.
+         */
+        public String toString() {
+            return new File(path).getName() + "  " + numRows + "x" + numCols + "  "
+                    + Math.round(density * 100) + "%";
+        }
+    }
+
+    /**
+     * Constructs a PuzzleIndex for the specified directory. The index is stored in
+     * the directory itself.
+     *
+     * @param directory The directory containing the puzzles.
+     */
+    public PuzzleIndex(File directory) {
+        this(directory, new File(directory, INDEX_FILE_NAME));
+    }
+
+    /**
+     * Constructs a PuzzleIndex for the specified directory and index file.
+     *
+     * @param directory The directory containing the puzzles.
+     * @param indexFile The file the index is stored in.
+     */
+    public PuzzleIndex(File directory, File indexFile) {
+        this.directory = directory;
+        this.indexFile = indexFile;
+        this.entries = new ConcurrentHashMap<String, Entry>();
+    }
+
+    /**
+     * Loads the index file, if present. Malformed lines are ignored.
+     *
+     * @throws IOException if an I/O error occurs while reading the index file.
+     */
+    public void load() throws IOException {
+        entries.clear();
+        if (!indexFile.isFile()) {
+            return;
+        }
+        BufferedReader reader = new BufferedReader(new FileReader(indexFile));
+        try {
+            String line = reader.readLine();
+            if (!INDEX_HEADER.equals(line)) {
+                return;
+            }
+            while ((line = reader.readLine()) != null) {
+                try {
+                    Entry entry = Entry.fromLine(line);
+                    entries.put(entry.getPath(), entry);
+                } catch (IllegalArgumentException | IndexOutOfBoundsException e) {
+                    // Skip entries that cannot be read; they are rebuilt on refresh
+                }
+            }
+        } finally {
+            reader.close();
+        }
+    }
+
+    /**
+     * Saves the index to the index file.
+     *
+     * @throws IOException if an I/O error occurs while writing the index file.
+     */
+    public void save() throws IOException {
+        BufferedWriter writer = new BufferedWriter(new FileWriter(indexFile));
+        try {
+            writer.write(INDEX_HEADER);
+            writer.newLine();
+            for (Entry entry : getEntries()) {
+                writer.write(entry.toLine());
+                writer.newLine();
+            }
+        } finally {
+            writer.close();
+        }
+    }
+
+    /**
+     * Brings the index up to date with the directory. Only puzzles that are new
+     * or whose modification time or length changed are parsed, in parallel. Entries for
+     * deleted files are dropped.
+     *
+     * @return true if any entry was added, updated or removed.
+     * @throws IOException if an I/O error occurs while listing the directory.
+     */
+    public boolean refresh() throws IOException {
+        List<Path> puzzles;
+        try (Stream<Path> walk = Files.walk(directory.toPath())) {
+            puzzles = walk.filter(PuzzleIndex::isPuzzle).collect(Collectors.toList());
+        }
+
+        Set<String> current = new HashSet<String>();
+        List<File> stale = new ArrayList<File>();
+        for (Path path : puzzles) {
+            File file = path.toFile();
+            current.add(file.getPath());
+            Entry entry = entries.get(file.getPath());
+            if (entry == null || entry.getLastModified() != file.lastModified()
+                    || entry.getLength() != file.length()) {
+                stale.add(file);
+            }
+        }
+
+        boolean changed = entries.keySet().retainAll(current);
+        changed |= stale.parallelStream().map(this::update).reduce(false, Boolean::logicalOr);
+        return changed;
+    }
+
+    /**
+     * Re-indexes a single file, removing its entry if it no longer exists or can
+     * no longer be parsed.
+     *
+     * @param file The puzzle file.
+     * @return true if the index changed.
+     */
+    public boolean update(File file) {
+        try {
+            if (file.isFile()) {
+                entries.put(file.getPath(), Entry.fromFile(file));
+                return true;
+            }
+        } catch (IOException | RuntimeException e) {
+            // Not a readable puzzle; fall through and drop it from the index
+        }
+        return entries.remove(file.getPath()) != null;
+    }
+
+    /**
+     * Starts watching the directory tree for changes. Whenever a puzzle file is
+     * created, modified or deleted its entry is updated, the index is saved and
+     * the listener is run on the watch thread.
+     *
+     * @param listener The listener to notify after the index changed.
+     * @throws IOException if the watch service cannot be created.
+     */
+    public void watch(Runnable listener) throws IOException {
+        stopWatching();
+        watchService = FileSystems.getDefault().newWatchService();
+        register(watchService, directory.toPath());
+        WatchService service = watchService;
+        watchThread = new Thread(() -> processEvents(service, listener), "puzzle-index-watcher");
+        watchThread.setDaemon(true);
+        watchThread.start();
+    }
+
+    /**
+     * Registers a directory and all directories below it with a watch service.
+     *
+     * @param service The watch service to register with.
+     * @param root    The root of the directory tree.
+     * @return The puzzle files found in the tree.
+     * @throws IOException if an I/O error occurs while walking the tree.
+     */
+    private static List<Path> register(WatchService service, Path root) throws IOException {
+        List<Path> paths;
+        try (Stream<Path> walk = Files.walk(root)) {
+            paths = walk.collect(Collectors.toList());
+        }
+        List<Path> puzzles = new ArrayList<Path>();
+        for (Path path : paths) {
+            if (Files.isDirectory(path)) {
+                path.register(service, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY,
+                        StandardWatchEventKinds.ENTRY_DELETE);
+            } else if (isPuzzle(path)) {
+                puzzles.add(path);
+            }
+        }
+        return puzzles;
+    }
+
+    /**
+     * Removes the entries of all files below a directory.
+     *
+     * @param dir The directory.
+     * @return true if any entry was removed.
+     */
+    private boolean removeUnder(File dir) {
+        String prefix = dir.getPath() + File.separator;
+        return entries.keySet().removeIf(path -> path.startsWith(prefix));
+    }
+
+    /**
+     * Stops watching the directory tree, if it is being watched.
+     */
+    public void stopWatching() {
+        if (watchService != null) {
+            try {
+                watchService.close();
+            } catch (IOException e) {
+                // The watcher is being discarded anyway
+            }
+            watchService = null;
+            watchThread = null;
+        }
+    }
+
+    /**
+     * Processes watch events until the watch service is closed.
+     *
+     * @param service  The watch service to take events from.
+     * @param listener The listener to notify after the index changed.
+     */
+    private void processEvents(WatchService service, Runnable listener) {
+        try {
+            while (true) {
+                WatchKey key = service.take();
+                Path dir = (Path) key.watchable();
+                boolean changed = false;
+                for (WatchEvent<?> event : key.pollEvents()) {
+                    if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                        changed |= refresh();
+                        continue;
+                    }
+                    Path path = dir.resolve((Path) event.context());
+                    if (event.kind() == StandardWatchEventKinds.ENTRY_CREATE && Files.isDirectory(path)) {
+                        // Watch the new directory too; files may already have been
+                        // created in it before it was registered
+                        try {
+                            for (Path puzzle : register(service, path)) {
+                                changed |= update(puzzle.toFile());
+                            }
+                        } catch (IOException | UncheckedIOException e) {
+                            // The directory went away before it could be registered
+                        }
+                        continue;
+                    }
+                    if (event.kind() == StandardWatchEventKinds.ENTRY_DELETE) {
+                        // The path may have been a directory full of puzzles
+                        changed |= update(path.toFile());
+                        changed |= removeUnder(path.toFile());
+                    } else if (isPuzzle(path)) {
+                        changed |= update(path.toFile());
+                    }
+                }
+                key.reset();
+                if (changed) {
+                    save();
+                    listener.run();
+                }
+            }
+        } catch (InterruptedException | ClosedWatchServiceException e) {
+            // Watching stopped
+        } catch (IOException e) {
+            // The index can no longer be kept up to date; stop watching
+        }
+    }
+
+    /**
+     * Returns the indexed entries sorted by path.
+     *
+     * @return The indexed entries.
+     */
+    public List<Entry> getEntries() {
+        List<Entry> list = new ArrayList<Entry>(entries.values());
+        Collections.sort(list, Comparator.comparing(Entry::getPath));
+        return list;
+    }
+
+    /**
+     * Groups the indexed puzzles that have the same content. Puzzles are compared
+     * by their content hashes only, so finding duplicates takes constant time per
+     * puzzle.
+     *
+     * @return The groups of two or more entries with equal content hashes, in no
+     *         particular order.
+     */
+    public List<List<Entry>> findDuplicates() {
+        Map<Long, List<Entry>> groups = new HashMap<Long, List<Entry>>();
+        for (Entry entry : entries.values()) {
+            groups.computeIfAbsent(entry.getContentHash(), hash -> new ArrayList<Entry>()).add(entry);
+        }
+        List<List<Entry>> duplicates = new ArrayList<List<Entry>>();
+        for (List<Entry> group : groups.values()) {
+            if (group.size() > 1) {
+                duplicates.add(group);
+            }
+        }
+        return duplicates;
+    }
+
+    /**
+     * Returns the directory being indexed.
+     *
+     * @return The indexed directory.
+     */
+    public File getDirectory() {
+        return directory;
+    }
+
+    /**
+     * Returns whether the path looks like a puzzle file.
+     *
+     * @param path The path to check.
+     * @return true if the path is a regular file with the puzzle or
+     *         run-length extension, optionally followed by .gz.
+     */
+    private static boolean isPuzzle(Path path) {
+        String name = NonogramFormat.stripGzip(path.getFileName().toString());
+        return (name.endsWith(PUZZLE_EXTENSION) || name.endsWith(NonogramFormat.RLE_EXTENSION))
+                && Files.isRegularFile(path);
+    }
+}
@@ -0,0 +1,117 @@
+package hellofx.presenters;
+
+import java.io.File;
+import java.io.IOException;
+
+import hellofx.handlers.SaveHandler;
+import hellofx.interfaces.Saveable;
+import hellofx.models.ColorNonogramModel;
+import hellofx.views.ColorCellGridView;
+import javafx.scene.Scene;
+import javafx.scene.input.MouseButton;
+import javafx.scene.input.MouseEvent;
+import javafx.stage.FileChooser;
+import javafx.stage.FileChooser.ExtensionFilter;
+import javafx.stage.Stage;
+import javafx.stage.Window;
+
+/**
+ * The presenter class for the multi-color nonogram editor.
+ * Paints cells with the selected palette color and keeps the canvas in sync
+ * with the model.
+ */
+public class ColorNonogramPresenter implements Saveable {
+
+    private ColorNonogramModel model;
+    private ColorCellGridView view;
+    private Stage stage;
+
+    /**
+     * Constructs a ColorNonogramPresenter for the specified model and cell length.
+     *
+     * @param model      The model of the color nonogram to edit.
+     * @param cellLength The length of each cell in pixels.
+     */
+    public ColorNonogramPresenter(ColorNonogramModel model, int cellLength) {
+        this.model = model;
+        this.view = new ColorCellGridView(cellLength);
+        view.setPalette(model.getPalette());
+        view.draw(model);
+        bindCanvas();
+    }
+
+    /**
+     * Paints the clicked or dragged-over cell with the selected color. The
+     * secondary button clears the cell instead.
+     */
+    private void bindCanvas() {
+        view.getCanvas().setOnMousePressed(this::paint);
+        view.getCanvas().setOnMouseDragged(this::paint);
+    }
+
+    /**
+     * Paints the cell under the mouse and redraws it with its row and column
+     * clues.
+     *
+     * @param event The mouse event.
+     */
+    private void paint(MouseEvent event) {
+        int rowIdx = view.getRowAt(event.getY());
+        int colIdx = view.getColAt(event.getX());
+        if (rowIdx < 0 || colIdx < 0 || rowIdx >= model.getNumRows() || colIdx >= model.getNumCols()) {
+            return;
+        }
+        int color = event.getButton() == MouseButton.SECONDARY ? 0 : view.getSelectedColor();
+        if (model.getCell(rowIdx, colIdx) != color) {
+            model.setCell(rowIdx, colIdx, color);
+            view.drawEdit(model, rowIdx, colIdx);
+        }
+    }
+
+    /**
+     * Shows the editor in its own window.
+     *
+     * @param owner The window owning the editor window, or null.
+     * @param title The title of the window.
+     */
+    public void show(Window owner, String title) {
+        Stage window = new Stage();
+        if (owner != null) {
+            window.initOwner(owner);
+        }
+        show(window, title);
+    }
+
+    /**
+     * Shows the editor in the specified window.
+     *
+     * @param stage The window to show the editor in.
+     * @param title The title of the window.
+     */
+    public void show(Stage stage, String title) {
+        this.stage = stage;
+        stage.setTitle(title);
+        Scene scene = new Scene(view.getPane());
+        scene.getStylesheets().add("hellofx/style.css");
+        stage.setScene(scene);
+        stage.setResizable(false);
+
+        FileChooser saveChooser = new FileChooser();
+        saveChooser.setTitle("Save");
+        saveChooser.getExtensionFilters().addAll(new ExtensionFilter("Text Files", "*.txt"),
+                new ExtensionFilter("Compressed Puzzles", "*.txt.gz"));
+        saveChooser.setInitialDirectory(new File("."));
+        view.getSaveMenuItem().setOnAction(new SaveHandler(stage, saveChooser, this));
+        stage.show();
+    }
+
+    /**
+     * Saves the color nonogram to a file in the color format.
+     *
+     * @param filename The name of the file to save the nonogram to.
+     * @throws IOException If an I/O error occurs while saving the file.
+     */
+    public void save(String filename) throws IOException {
+        model.saveToFile(filename);
+    }
+}
@@ -0,0 +1,113 @@
+package hellofx.presenters;
+
+import java.io.File;
+import java.io.IOException;
+
+import hellofx.handlers.SaveHandler;
+import hellofx.interfaces.Saveable;
+import hellofx.models.MappedNonogramModel;
+import hellofx.views.LargePuzzleView;
+import javafx.scene.Scene;
+import javafx.scene.input.MouseEvent;
+import javafx.stage.FileChooser;
+import javafx.stage.FileChooser.ExtensionFilter;
+import javafx.stage.Stage;
+import javafx.stage.Window;
+
+/**
+ * The presenter class for the editor of puzzles too large to hold on the heap.
+ * The puzzle is edited through a memory-mapped model, a viewport at a time.
+ */
+public class LargePuzzlePresenter implements Saveable {
+
+    private MappedNonogramModel model;
+    private LargePuzzleView view;
+
+    /**
+     * Constructs a LargePuzzlePresenter for the specified model and cell length.
+     *
+     * @param model      The mapped model of the puzzle to edit.
+     * @param cellLength The length of each cell in pixels.
+     */
+    public LargePuzzlePresenter(MappedNonogramModel model, int cellLength) {
+        this.model = model;
+        this.view = new LargePuzzleView(model.getNumRows(), model.getNumCols(), cellLength);
+        view.getRowScrollBar().valueProperty().addListener((observable, oldValue, newValue) -> view.draw(model));
+        view.getColScrollBar().valueProperty().addListener((observable, oldValue, newValue) -> view.draw(model));
+        view.getCanvas().setOnMousePressed(this::toggle);
+        view.draw(model);
+    }
+
+    /**
+     * Toggles the clicked cell and shows the clues of its row and column.
+     *
+     * @param event The mouse event.
+     */
+    private void toggle(MouseEvent event) {
+        int rowIdx = view.getRowAt(event.getY());
+        int colIdx = view.getColAt(event.getX());
+        if (rowIdx >= model.getNumRows() || colIdx >= model.getNumCols()) {
+            return;
+        }
+        model.setCell(rowIdx, colIdx, !model.getCell(rowIdx, colIdx));
+        view.drawCell(model, rowIdx, colIdx);
+        view.setStatus("Row " + (rowIdx + 1) + ": " + model.projectRow(rowIdx) + "   Column " + (colIdx + 1) + ": "
+                + model.projectCol(colIdx));
+    }
+
+    /**
+     * Shows the editor in its own window. The mapped model is closed when the
+     * window is closed.
+     *
+     * @param owner The window owning the editor window, or null.
+     * @param title The title of the window.
+     */
+    public void show(Window owner, String title) {
+        Stage stage = new Stage();
+        if (owner != null) {
+            stage.initOwner(owner);
+        }
+        show(stage, title);
+    }
+
+    /**
+     * Shows the editor in the specified window. The mapped model is closed when
+     * the window is closed.
+     *
+     * @param stage The window to show the editor in.
+     * @param title The title of the window.
+     */
+    public void show(Stage stage, String title) {
+        stage.setTitle(title);
+        Scene scene = new Scene(view.getPane());
+        scene.getStylesheets().add("hellofx/style.css");
+        stage.setScene(scene);
+        stage.setResizable(false);
+        stage.setOnHidden(event -> {
+            try {
+                model.close();
+            } catch (IOException e) {
+                // The edits could not be flushed to the mapped file, which is
+                // only a working copy
+            }
+        });
+
+        FileChooser saveChooser = new FileChooser();
+        saveChooser.setTitle("Save");
+        saveChooser.getExtensionFilters().addAll(new ExtensionFilter("Text Files", "*.txt"),
+                new ExtensionFilter("Compressed Puzzles", "*.rle", "*.txt.gz", "*.rle.gz"));
+        saveChooser.setInitialDirectory(new File("."));
+        view.getSaveMenuItem().setOnAction(new SaveHandler(stage, saveChooser, this));
+        stage.show();
+    }
+
+    /**
+     * Saves the puzzle to a file in the text format.
+     *
+     * @param filename The name of the file to save the puzzle to.
+     * @throws IOException If an I/O error occurs while saving the file.
+     */
+    public void save(String filename) throws IOException {
+        model.saveToFile(filename);
+    }
+}
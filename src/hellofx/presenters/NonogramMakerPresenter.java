@@ -2,16 +2,39 @@ package hellofx.presenters;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.Optional;
 
+import hellofx.collab.CollabClient;
+import hellofx.handlers.CompareHandler;
+import hellofx.handlers.ExportHandler;
+import hellofx.handlers.ImportHandler;
+import hellofx.handlers.LibraryHandler;
 import hellofx.handlers.OpenHandler;
 import hellofx.handlers.SaveHandler;
 import hellofx.handlers.ToggleButtonEventHandler;
+import hellofx.interfaces.Browsable;
+import hellofx.interfaces.Diffable;
+import hellofx.interfaces.Exportable;
+import hellofx.interfaces.Importable;
 import hellofx.interfaces.Openable;
 import hellofx.interfaces.Saveable;
+import hellofx.metrics.Metrics;
+import hellofx.metrics.PresenterInitEvent;
+import hellofx.models.ColorNonogramModel;
+import hellofx.models.ImageImporter;
+import hellofx.models.MappedNonogramModel;
+import hellofx.models.ModelCache;
+import hellofx.models.NonogramDiff;
+import hellofx.models.NonogramFormat;
 import hellofx.models.NonogramMakerModel;
+import hellofx.models.PuzzleExporter;
 import hellofx.views.NonogramMakerView;
+import javafx.scene.control.Alert;
+import javafx.scene.control.Alert.AlertType;
+import javafx.scene.control.ChoiceDialog;
 import javafx.scene.control.ToggleButton;
 import javafx.scene.layout.Pane;
+import javafx.stage.DirectoryChooser;
 import javafx.stage.FileChooser;
 import javafx.stage.FileChooser.ExtensionFilter;
 import javafx.stage.Window;
@@ -20,11 +43,20 @@ import javafx.stage.Window;
  * The presenter class for the Nonogram Maker application.
  * Handles the logic and interaction between the model and view.
  */
-public class NonogramMakerPresenter implements Openable, Saveable {
+public class NonogramMakerPresenter implements Openable, Saveable, Browsable, Importable, Exportable, Diffable {
+
+    private static final long MODEL_CACHE_BYTES = 64L * 1024 * 1024;
+    private static final double IMPORT_THRESHOLD = 0.5;
+    private static final int EXPORT_DPI = 300;
+    private static final int SCREEN_DPI = 96;
+    /** Puzzles with more cells are opened through a memory-mapped model. */
+    public static final long LARGE_PUZZLE_CELLS = 1L << 22;
 
     private NonogramMakerView view;
     private NonogramMakerModel model;
     private int cellLength;
+    private ModelCache modelCache;
+    private CollabClient collabClient;
 
     /**
      * Constructs a NonogramMakerPresenter object with the specified number of rows,
@@ -37,11 +69,28 @@ public class NonogramMakerPresenter implements Openable, Saveable {
      */
     public NonogramMakerPresenter(int numRows, int numCols, int cellLength) {
         this.cellLength = cellLength;
+        modelCache = new ModelCache(MODEL_CACHE_BYTES);
         model = new NonogramMakerModel(numRows, numCols);
         view = new NonogramMakerView(numRows, numCols, cellLength);
         init();
     }
 
+    /**
+     * Constructs a NonogramMakerPresenter object for an already loaded model and
+     * the specified cell length. The view is created at the size of the model, so
+     * the grid of buttons is only built once.
+     * 
+     * @param model      The model of the nonogram to edit.
+     * @param cellLength The length of each cell in pixels.
+     */
+    public NonogramMakerPresenter(NonogramMakerModel model, int cellLength) {
+        this.cellLength = cellLength;
+        modelCache = new ModelCache(MODEL_CACHE_BYTES);
+        this.model = model;
+        view = new NonogramMakerView(model.getNumRows(), model.getNumCols(), cellLength);
+        init();
+    }
+
     /**
      * Retrieves the window associated with the view.
      * 
@@ -60,17 +109,31 @@ public class NonogramMakerPresenter implements Openable, Saveable {
      * Initializes the menu and buttons.
      */
     private void init() {
+        PresenterInitEvent event = new PresenterInitEvent();
+        event.begin();
+        long start = System.nanoTime();
+
         initToggleButtons();
+        view.clearMarks();
         bindToggleButtons();
         configureMenuItems();
+
+        event.numRows = model.getNumRows();
+        event.numCols = model.getNumCols();
+        event.commit();
+        Metrics.recordDuration("presenter.init", start);
     }
 
     /**
      * Initializes the toggle buttons in the view.
-     * Sets the initial state of the buttons based on the model.
+     * The buttons are only rebuilt when the size of the model differs from the
+     * size of the view; otherwise the existing buttons are rebound.
      * Adjusts the window size to fit the content.
      */
     private void initToggleButtons() {
+        if (view.getNumRows() == model.getNumRows() && view.getNumCols() == model.getNumCols()) {
+            return;
+        }
         view.initButtons(model.getNumRows(), model.getNumCols(), cellLength);
         if (getWindow() != null) {
             getWindow().sizeToScene();
@@ -87,29 +150,75 @@ public class NonogramMakerPresenter implements Openable, Saveable {
             for (int colIdx = 0; colIdx < model.getNumCols(); colIdx++) {
                 ToggleButton button = view.getToggleButton(rowIdx, colIdx);
                 button.setSelected(model.getCell(rowIdx, colIdx));
-                button.setOnAction(new ToggleButtonEventHandler(model, rowIdx, colIdx));
+                if (collabClient != null) {
+                    button.setOnAction(new ToggleButtonEventHandler(collabClient, rowIdx, colIdx));
+                } else {
+                    button.setOnAction(new ToggleButtonEventHandler(model, rowIdx, colIdx));
+                }
             }
         }
     }
 
     /**
      * Configures the menu items in the view.
-     * Sets up the open and save file functionality.
+     * Sets up the open, library, import, save, export and compare file
+     * functionality.
      */
     private void configureMenuItems() {
         // Save file
         FileChooser saveChooser = new FileChooser();
         saveChooser.setTitle("Save");
-        saveChooser.getExtensionFilters().addAll(new ExtensionFilter("Text Files", "*.txt"));
+        saveChooser.getExtensionFilters().addAll(new ExtensionFilter("Text Files", "*.txt"),
+                new ExtensionFilter("Compressed Puzzles", "*.rle", "*.txt.gz", "*.rle.gz"));
         saveChooser.setInitialDirectory(new File("."));
         view.getMenuItem(view.MENU_ITEM_SAVE).setOnAction(new SaveHandler(getWindow(), saveChooser, this));
 
         // Open file
         FileChooser openChooser = new FileChooser();
         openChooser.setTitle("Open");
-        openChooser.getExtensionFilters().addAll(new ExtensionFilter("Text Files", "*.txt"));
+        openChooser.getExtensionFilters().addAll(new ExtensionFilter("Text Files", "*.txt"),
+                new ExtensionFilter("Compressed Puzzles", "*.rle", "*.txt.gz", "*.rle.gz"));
         openChooser.setInitialDirectory(new File("."));
         view.getMenuItem(view.MENU_ITEM_OPEN).setOnAction(new OpenHandler(getWindow(), openChooser, this));
+
+        // Browse library
+        DirectoryChooser libraryChooser = new DirectoryChooser();
+        libraryChooser.setTitle("Library");
+        libraryChooser.setInitialDirectory(new File("."));
+        view.getMenuItem(view.MENU_ITEM_LIBRARY).setOnAction(new LibraryHandler(getWindow(), libraryChooser, this));
+
+        // Import image
+        FileChooser importChooser = new FileChooser();
+        importChooser.setTitle("Import Image");
+        importChooser.getExtensionFilters().addAll(
+                new ExtensionFilter("Image Files", "*.png", "*.gif", "*.jpg", "*.jpeg", "*.bmp"));
+        importChooser.setInitialDirectory(new File("."));
+        view.getMenuItem(view.MENU_ITEM_IMPORT).setOnAction(new ImportHandler(getWindow(), importChooser, this));
+
+        // Export image
+        FileChooser exportChooser = new FileChooser();
+        exportChooser.setTitle("Export Image");
+        exportChooser.getExtensionFilters().addAll(new ExtensionFilter("PNG Images", "*.png"),
+                new ExtensionFilter("SVG Images", "*.svg"));
+        exportChooser.setInitialDirectory(new File("."));
+        view.getMenuItem(view.MENU_ITEM_EXPORT).setOnAction(new ExportHandler(getWindow(), exportChooser, this));
+
+        // Compare with another puzzle
+        FileChooser compareChooser = new FileChooser();
+        compareChooser.setTitle("Compare With");
+        compareChooser.getExtensionFilters().addAll(new ExtensionFilter("Text Files", "*.txt"),
+                new ExtensionFilter("Compressed Puzzles", "*.rle", "*.txt.gz", "*.rle.gz"));
+        compareChooser.setInitialDirectory(new File("."));
+        view.getMenuItem(view.MENU_ITEM_COMPARE).setOnAction(new CompareHandler(getWindow(), compareChooser, this));
+    }
+
+    /**
+     * Retrieves the model being edited.
+     * 
+     * @return The model of the current nonogram.
+     */
+    public NonogramMakerModel getModel() {
+        return model;
     }
 
     /**
@@ -123,15 +232,148 @@ public class NonogramMakerPresenter implements Openable, Saveable {
 
     /**
      * Opens a nonogram file and updates the model and view accordingly.
+     * Recently opened files that have not changed are served from the model
+     * cache without reading the file. Otherwise its header is read once to
+     * decide how to open it: multi-color puzzles are opened in a color editor
+     * window of their own, and puzzles too large to edit with a grid of buttons
+     * are opened through a memory-mapped working copy in a viewport editor
+     * window.
      * 
      * @param file The nonogram file to open.
      * @throws IOException If an I/O error occurs while opening the file.
      */
     public void open(File file) throws IOException {
-        model = new NonogramMakerModel(file);
+        NonogramMakerModel cached = modelCache.get(file);
+        if (cached == null) {
+            String header = NonogramFormat.readHeader(file);
+            if (ColorNonogramModel.isColorHeader(header)) {
+                new ColorNonogramPresenter(new ColorNonogramModel(file), cellLength).show(getWindow(),
+                        file.getName());
+                return;
+            }
+            int[] size = NonogramFormat.parseDimensions(header);
+            if (size != null && (long) size[0] * size[1] > LARGE_PUZZLE_CELLS) {
+                MappedNonogramModel mapped = MappedNonogramModel.workingCopyOf(file);
+                new LargePuzzlePresenter(mapped, cellLength).show(getWindow(), file.getName());
+                return;
+            }
+            cached = modelCache.load(file);
+        }
+        leaveSession();
+        model = cached;
         init();
     }
 
+    /**
+     * Imports an image into a grid of the current size, after asking how the
+     * image should be converted into filled and empty cells.
+     * 
+     * @param file The image file to import.
+     * @throws IOException If an I/O error occurs while reading the image.
+     */
+    public void importImage(File file) throws IOException {
+        ChoiceDialog<ImageImporter.Mode> dialog = new ChoiceDialog<ImageImporter.Mode>(
+                ImageImporter.Mode.THRESHOLD, ImageImporter.Mode.values());
+        dialog.setTitle("Import Image");
+        dialog.setHeaderText("How should the image be converted?");
+        Optional<ImageImporter.Mode> mode = dialog.showAndWait();
+        if (mode.isPresent()) {
+            leaveSession();
+            ImageImporter importer = new ImageImporter(mode.get(), IMPORT_THRESHOLD);
+            model = importer.importImage(file, model.getNumRows(), model.getNumCols());
+            init();
+        }
+    }
+
+    /**
+     * Exports the current nonogram with its clues to a PNG or SVG image. Cells
+     * keep their on-screen size, scaled up to the export resolution.
+     * 
+     * @param file The image file to export to.
+     * @throws IOException If an I/O error occurs while writing the image.
+     */
+    public void export(File file) throws IOException {
+        PuzzleExporter exporter = new PuzzleExporter(Math.max(4, cellLength * EXPORT_DPI / SCREEN_DPI), EXPORT_DPI);
+        exporter.export(model, file);
+    }
+
+    /**
+     * Edits the puzzle shared through a collaboration client. Edits are sent to
+     * the server, and the cells changed by other editors are updated in place
+     * without rebuilding the grid. Opening or importing another puzzle leaves the
+     * session.
+     * 
+     * @param client The client connected to the collaboration server. Its
+     *               deltas must be applied on the JavaFX application thread.
+     */
+    public void collaborate(CollabClient client) {
+        leaveSession();
+        collabClient = client;
+        model = client.getModel();
+        init();
+        client.setListener(indices -> {
+            for (int index : indices) {
+                int rowIdx = index / model.getNumCols();
+                int colIdx = index % model.getNumCols();
+                view.getToggleButton(rowIdx, colIdx).setSelected(model.getCell(rowIdx, colIdx));
+            }
+        });
+    }
+
+    /**
+     * Disconnects from the collaboration server, if connected. The shared puzzle
+     * stays open as a local copy.
+     */
+    private void leaveSession() {
+        if (collabClient != null) {
+            collabClient.setListener(null);
+            collabClient.close();
+            collabClient = null;
+        }
+    }
+
+    /**
+     * Compares the current nonogram with the one in the specified file. Changed
+     * cells are marked in the grid until another puzzle is opened, and a summary
+     * of the changed rows, columns and clues is shown.
+     * 
+     * @param file The nonogram file to compare with.
+     * @throws IOException If an I/O error occurs while reading the file.
+     */
+    public void compare(File file) throws IOException {
+        NonogramMakerModel other = modelCache.open(file);
+        Alert alert = new Alert(AlertType.INFORMATION);
+        alert.setTitle("Compare With " + file.getName());
+        alert.setHeaderText(null);
+        if (other.getNumRows() != model.getNumRows() || other.getNumCols() != model.getNumCols()) {
+            alert.setContentText(file.getName() + " is " + other.getNumRows() + " x " + other.getNumCols()
+                    + "; only puzzles of the same size can be compared.");
+            alert.show();
+            return;
+        }
+        NonogramDiff diff = new NonogramDiff(model, other);
+        view.clearMarks();
+        for (int rowIdx : diff.getChangedRows()) {
+            for (int colIdx : diff.getChangedCols()) {
+                if (diff.isChanged(rowIdx, colIdx)) {
+                    view.markChanged(rowIdx, colIdx);
+                }
+            }
+        }
+        alert.setContentText(diff.isEmpty() ? "The puzzles are identical." : diff.toString() + ".");
+        alert.show();
+    }
+
+    /**
+     * Shows the puzzle library for the specified directory in its own window.
+     * Puzzles chosen in the library are opened in this presenter.
+     * 
+     * @param directory The directory containing the puzzles.
+     */
+    public void browse(File directory) {
+        new PuzzleLibraryPresenter(directory, this).show(getWindow());
+    }
+
     /**
      * Saves the current nonogram to a file with the specified name.
      * 
@@ -140,5 +382,6 @@ public class NonogramMakerPresenter implements Openable, Saveable {
      */
     public void save(String fileName) throws IOException {
         model.saveToFile(fileName);
+        modelCache.put(new File(fileName), model);
     }
 }
@@ -0,0 +1,113 @@
+package hellofx.presenters;
+
+import java.io.File;
+import java.io.IOException;
+
+import hellofx.interfaces.Openable;
+import hellofx.models.PuzzleIndex;
+import hellofx.views.PuzzleLibraryView;
+import javafx.application.Platform;
+import javafx.scene.Scene;
+import javafx.scene.input.MouseButton;
+import javafx.stage.Stage;
+import javafx.stage.Window;
+
+/**
+ * The presenter class for the puzzle library browser.
+ * Keeps the library view in sync with the on-disk puzzle index and opens the
+ * chosen puzzle.
+ */
+public class PuzzleLibraryPresenter {
+
+    private PuzzleIndex index;
+    private PuzzleLibraryView view;
+    private Openable opener;
+    private Stage stage;
+    private volatile boolean closed;
+
+    /**
+     * Constructs a PuzzleLibraryPresenter for the specified directory.
+     *
+     * @param directory The directory containing the puzzles.
+     * @param opener    The Openable object used to open the chosen puzzle.
+     */
+    public PuzzleLibraryPresenter(File directory, Openable opener) {
+        this.index = new PuzzleIndex(directory);
+        this.view = new PuzzleLibraryView();
+        this.opener = opener;
+        bindListView();
+    }
+
+    /**
+     * Opens the puzzle that is double-clicked in the list.
+     */
+    private void bindListView() {
+        view.getListView().setOnMouseClicked(event -> {
+            PuzzleIndex.Entry entry = view.getListView().getSelectionModel().getSelectedItem();
+            if (entry != null && event.getButton() == MouseButton.PRIMARY && event.getClickCount() == 2) {
+                try {
+                    opener.open(new File(entry.getPath()));
+                    close();
+                } catch (IOException | RuntimeException e) {
+                    view.setStatus("Could not open " + entry.getPath());
+                }
+            }
+        });
+    }
+
+    /**
+     * Shows the library in its own window. The cached index is shown right away
+     * while it is refreshed and watched in the background.
+     *
+     * @param owner The window owning the library window, or null.
+     */
+    public void show(Window owner) {
+        stage = new Stage();
+        if (owner != null) {
+            stage.initOwner(owner);
+        }
+        stage.setTitle("Puzzle Library - " + index.getDirectory().getAbsolutePath());
+        stage.setScene(new Scene(view.getPane()));
+        stage.setOnHidden(event -> close());
+        stage.show();
+
+        view.setStatus("Indexing...");
+        Thread indexer = new Thread(this::loadIndex, "puzzle-indexer");
+        indexer.setDaemon(true);
+        indexer.start();
+    }
+
+    /**
+     * Loads, refreshes and starts watching the index. Runs on a background thread.
+     */
+    private void loadIndex() {
+        try {
+            index.load();
+            Platform.runLater(() -> view.setEntries(index.getEntries()));
+            if (index.refresh()) {
+                index.save();
+            }
+            Platform.runLater(() -> view.setEntries(index.getEntries()));
+            synchronized (index) {
+                if (!closed) {
+                    index.watch(() -> Platform.runLater(() -> view.setEntries(index.getEntries())));
+                }
+            }
+        } catch (IOException e) {
+            Platform.runLater(() -> view.setStatus("Could not index " + index.getDirectory()));
+        }
+    }
+
+    /**
+     * Closes the library window and stops watching the directory.
+     */
+    public void close() {
+        synchronized (index) {
+            closed = true;
+            index.stopWatching();
+        }
+        if (stage != null && stage.isShowing()) {
+            stage.close();
+        }
+    }
+}
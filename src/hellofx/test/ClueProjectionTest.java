@@ -0,0 +1,61 @@
+package hellofx.test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import hellofx.models.ClueProjection;
+import hellofx.models.NonogramMakerModel;
+
+class ClueProjectionTest {
+
+	@Test
+	void testMatchesLineProjection() {
+		Random random = new Random(32);
+		// Sizes around the 64-cell transpose tiles, and grids large enough to be
+		// split into several row and column tasks
+		int[][] sizes = { { 1, 1 }, { 63, 65 }, { 64, 64 }, { 65, 129 }, { 70, 1500 }, { 1500, 70 } };
+		for (int[] size : sizes) {
+			NonogramMakerModel model = new NonogramMakerModel(size[0], size[1]);
+			for (int r = 0; r < size[0]; r++) {
+				for (int c = 0; c < size[1]; c++) {
+					model.setCell(r, c, random.nextBoolean());
+				}
+			}
+			assertMatches(model);
+		}
+	}
+
+	@Test
+	void testRunsAcrossTileBoundaries() {
+		NonogramMakerModel model = new NonogramMakerModel(200, 200);
+		for (int i = 0; i < 200; i++) {
+			// Full row and column lines, and runs straddling the tile edges
+			model.setCell(64, i, true);
+			model.setCell(i, 127, true);
+			if (i >= 60 && i < 70) {
+				model.setCell(0, i, true);
+				model.setCell(i, 0, true);
+			}
+		}
+		assertMatches(model);
+		ClueProjection clues = model.getClues();
+		assertEquals(Arrays.asList(10, 1), clues.getRowClues(0));
+		assertEquals(Arrays.asList(200), clues.getRowClues(64));
+		assertEquals(Arrays.asList(200), clues.getColClues(127));
+		assertEquals(Arrays.asList(10), clues.getColClues(0));
+	}
+
+	private static void assertMatches(NonogramMakerModel model) {
+		ClueProjection clues = model.getClues();
+		for (int r = 0; r < model.getNumRows(); r++) {
+			assertEquals(model.projectRow(r), clues.getRowClues(r));
+		}
+		for (int c = 0; c < model.getNumCols(); c++) {
+			assertEquals(model.projectCol(c), clues.getColClues(c));
+		}
+	}
+}
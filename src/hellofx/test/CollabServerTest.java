@@ -0,0 +1,99 @@
+package hellofx.test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import hellofx.collab.CollabClient;
+import hellofx.collab.CollabServer;
+import hellofx.metrics.Metrics;
+import hellofx.models.NonogramMakerModel;
+
+class CollabServerTest {
+
+	private static final long TIMEOUT_MILLIS = 10_000;
+
+	@Test
+	void testClientsConverge() throws Exception {
+		NonogramMakerModel initial = new NonogramMakerModel(40, 60);
+		initial.setCell(3, 4, true);
+		try (CollabServer server = new CollabServer(initial, 0)) {
+			List<CollabClient> clients = new ArrayList<CollabClient>();
+			for (int i = 0; i < 3; i++) {
+				clients.add(new CollabClient("localhost", server.getPort(), Runnable::run));
+			}
+			for (CollabClient client : clients) {
+				assertEquals(initial, copy(client));
+			}
+
+			List<Thread> editors = new ArrayList<Thread>();
+			for (int i = 0; i < clients.size(); i++) {
+				CollabClient client = clients.get(i);
+				Random random = new Random(i);
+				Thread editor = new Thread(() -> {
+					try {
+						for (int e = 0; e < 2000; e++) {
+							client.setCell(random.nextInt(40), random.nextInt(60), random.nextBoolean());
+						}
+					} catch (IOException e) {
+						throw new RuntimeException(e);
+					}
+				});
+				editors.add(editor);
+				editor.start();
+			}
+			for (Thread editor : editors) {
+				editor.join();
+			}
+
+			long deadline = System.currentTimeMillis() + TIMEOUT_MILLIS;
+			boolean converged = false;
+			while (!converged && System.currentTimeMillis() < deadline) {
+				Thread.sleep(CollabServer.TICK_MILLIS);
+				NonogramMakerModel canonical = server.getModel();
+				converged = true;
+				for (CollabClient client : clients) {
+					converged &= canonical.equals(copy(client));
+				}
+			}
+			assertTrue(converged);
+			for (CollabClient client : clients) {
+				client.close();
+			}
+		}
+	}
+
+	@Test
+	void testEditsAreCoalesced() throws Exception {
+		Metrics.reset();
+		try (CollabServer server = new CollabServer(new NonogramMakerModel(5, 5), 0);
+				CollabClient client = new CollabClient("localhost", server.getPort(), Runnable::run)) {
+			for (int e = 0; e < 1000; e++) {
+				client.setCell(2, 2, e % 2 == 0);
+			}
+			long deadline = System.currentTimeMillis() + TIMEOUT_MILLIS;
+			while (Metrics.counter("collab.edits").sum() < 1000 && System.currentTimeMillis() < deadline) {
+				Thread.sleep(CollabServer.TICK_MILLIS);
+			}
+			Thread.sleep(3 * CollabServer.TICK_MILLIS);
+
+			assertEquals(1000, Metrics.counter("collab.edits").sum());
+			assertTrue(Metrics.histogram("collab.delta.cells").getCount() < 1000);
+			assertEquals(false, server.getModel().getCell(2, 2));
+			assertEquals(false, copy(client).getCell(2, 2));
+		}
+	}
+
+	private static NonogramMakerModel copy(CollabClient client) {
+		NonogramMakerModel model = client.getModel();
+		synchronized (model) {
+			return new NonogramMakerModel(model);
+		}
+	}
+}
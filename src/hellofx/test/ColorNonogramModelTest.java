@@ -0,0 +1,136 @@
+package hellofx.test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.fail;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import hellofx.models.ColorClue;
+import hellofx.models.ColorNonogramModel;
+import hellofx.models.NonogramMakerModel;
+
+class ColorNonogramModelTest {
+
+	private static final List<String> PALETTE = Arrays.asList("#ffffff", "#ff0000", "#00ff00", "#0000ff", "#000000");
+
+	@Test
+	void testClue() {
+		assertEquals(new ColorClue(3, 2), ColorClue.parse("3:2"));
+		assertEquals(new ColorClue(0, 0), ColorClue.parse("0"));
+		assertEquals("3:2", new ColorClue(3, 2).toString());
+		assertEquals("0", new ColorClue(0, 0).toString());
+		try {
+			ColorClue.parse("x:1");
+			fail();
+		} catch (IllegalArgumentException e) {
+		}
+	}
+
+	@Test
+	void testProject() {
+		// Groups of different colors may touch; groups of one color need a gap
+		assertEquals(Arrays.asList(new ColorClue(2, 1), new ColorClue(1, 2), new ColorClue(1, 1)),
+				ColorNonogramModel.project(new int[] { 1, 1, 2, 0, 1 }));
+		assertEquals(Arrays.asList(new ColorClue(0, 0)), ColorNonogramModel.project(new int[] { 0, 0, 0 }));
+	}
+
+	@Test
+	void testCells() {
+		ColorNonogramModel small = new ColorNonogramModel(3, 5, PALETTE.subList(0, 4));
+		assertEquals(2, small.getBitsPerCell());
+		ColorNonogramModel model = new ColorNonogramModel(3, 5, PALETTE);
+		assertEquals(4, model.getBitsPerCell());
+		model.setCell(2, 4, 4);
+		model.setCell(0, 0, 3);
+		model.setCell(0, 0, 1);
+		assertEquals(1, model.getCell(0, 0));
+		assertEquals(4, model.getCell(2, 4));
+		assertEquals(0, model.getCell(1, 2));
+		assertEquals(Arrays.asList(new ColorClue(1, 1)), model.projectRow(0));
+		assertEquals(Arrays.asList(new ColorClue(1, 4)), model.projectCol(4));
+		try {
+			model.setCell(0, 0, PALETTE.size());
+			fail();
+		} catch (IllegalArgumentException e) {
+		}
+	}
+
+	@Test
+	void testSaveRoundTrip() throws IOException {
+		Random random = new Random(36);
+		ColorNonogramModel model = new ColorNonogramModel(17, 23, PALETTE);
+		for (int r = 0; r < model.getNumRows(); r++) {
+			for (int c = 0; c < model.getNumCols(); c++) {
+				model.setCell(r, c, random.nextInt(PALETTE.size()));
+			}
+		}
+		for (String suffix : new String[] { ".txt", ".txt.gz" }) {
+			File file = File.createTempFile("color", suffix);
+			file.deleteOnExit();
+			model.saveToFile(file.getPath());
+			assertTrue(ColorNonogramModel.isColorFile(file));
+
+			ColorNonogramModel loaded = new ColorNonogramModel(file);
+			assertEquals(PALETTE, loaded.getPalette());
+			for (int r = 0; r < model.getNumRows(); r++) {
+				assertEquals(model.projectRow(r), loaded.projectRow(r));
+				for (int c = 0; c < model.getNumCols(); c++) {
+					assertEquals(model.getCell(r, c), loaded.getCell(r, c));
+				}
+			}
+			for (int c = 0; c < model.getNumCols(); c++) {
+				assertEquals(model.projectCol(c), loaded.projectCol(c));
+			}
+		}
+	}
+
+	@Test
+	void testIsColorFile() throws IOException {
+		File file = File.createTempFile("nonogram", ".txt");
+		file.deleteOnExit();
+		new NonogramMakerModel(3, 3).saveToFile(file.getPath());
+		assertFalse(ColorNonogramModel.isColorFile(file));
+	}
+
+	@Test
+	void testInvalidPalette() {
+		try {
+			new ColorNonogramModel(2, 2, Arrays.asList("#ffffff", "red"));
+			fail();
+		} catch (IllegalArgumentException e) {
+		}
+	}
+
+	@Test
+	void testInvalidFiles() throws IOException {
+		String clues = "0\n0\n0\n0\n";
+		String[] contents = {
+				"",
+				"2 2 2\n",
+				"2 2 2\n#ffffff #ff00zz\n" + clues + "00\n00\n",
+				"2 2 3\n#ffffff #ff0000\n" + clues + "00\n00\n",
+				"2 2 2\n#ffffff #ff0000\n" + clues + "00\n0\n",
+				"2 2 2\n#ffffff #ff0000\n" + clues + "00\n",
+				"2 2 2\n#ffffff #ff0000\n" + clues + "00\n02\n" };
+		for (String content : contents) {
+			File file = File.createTempFile("color", ".txt");
+			file.deleteOnExit();
+			Files.write(file.toPath(), content.getBytes(StandardCharsets.UTF_8));
+			try {
+				new ColorNonogramModel(file);
+				fail(content);
+			} catch (IllegalArgumentException e) {
+			}
+		}
+	}
+}
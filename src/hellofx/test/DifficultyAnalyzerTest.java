@@ -0,0 +1,189 @@
+package hellofx.test;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.fail;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import hellofx.models.DifficultyAnalyzer;
+import hellofx.models.NonogramMakerModel;
+
+class DifficultyAnalyzerTest {
+
+	@Test
+	void testSolvedByLogic() {
+		NonogramMakerModel model = new NonogramMakerModel(3, 3);
+		model.setCell(0, 0, true);
+		model.setCell(0, 1, true);
+		model.setCell(0, 2, true);
+		model.setCell(1, 1, true);
+		DifficultyAnalyzer.Report report = DifficultyAnalyzer.analyze(model);
+		assertFalse(report.requiresGuessing());
+		assertEquals(9, report.getSettledCells());
+		assertTrue(report.getScore() < 50);
+	}
+
+	@Test
+	void testRequiresGuessing() {
+		// Both diagonals of a 2x2 grid share these clues
+		List<List<Integer>> clues = Arrays.asList(Arrays.asList(1), Arrays.asList(1));
+		DifficultyAnalyzer.Report report = DifficultyAnalyzer.analyze(clues, clues);
+		assertTrue(report.requiresGuessing());
+		assertEquals(0, report.getSettledCells());
+		assertTrue(report.getScore() >= 50);
+	}
+
+	@Test
+	void testContradiction() {
+		List<List<Integer>> rows = Arrays.asList(Arrays.asList(2), Arrays.asList(0));
+		List<List<Integer>> cols = Arrays.asList(Arrays.asList(0), Arrays.asList(0));
+		try {
+			DifficultyAnalyzer.analyze(rows, cols);
+			fail();
+		} catch (IllegalArgumentException e) {
+		}
+	}
+
+	@Test
+	void testPropagationRounds() {
+		// Only column 2 is settled at first; the rest follows over five rounds,
+		// with rows 0 and 3 making progress twice
+		String[] rows = { "..##", "#.#.", ".#..", ".##." };
+		NonogramMakerModel model = new NonogramMakerModel(rows.length, rows[0].length());
+		for (int r = 0; r < rows.length; r++) {
+			for (int c = 0; c < rows[r].length(); c++) {
+				model.setCell(r, c, rows[r].charAt(c) == '#');
+			}
+		}
+		DifficultyAnalyzer.Report report = DifficultyAnalyzer.analyze(model);
+		assertFalse(report.requiresGuessing());
+		assertEquals(5, report.getRounds());
+		assertEquals(19, report.getLineSolves());
+		assertEquals(2, report.getRevisitedLines());
+		assertEquals(16, report.getSettledCells());
+	}
+
+	@Test
+	void testLineSolverMatchesBruteForce() {
+		int capacity = 10;
+		Random random = new Random(40);
+		// One solver for every line, as in a solve, so stale buffers would show
+		DifficultyAnalyzer.LineSolver solver = new DifficultyAnalyzer.LineSolver(capacity);
+		byte[] line = new byte[capacity];
+		for (int t = 0; t < 30000; t++) {
+			int n = 1 + random.nextInt(capacity);
+			boolean[] solution = new boolean[n];
+			int density = random.nextInt(101);
+			for (int i = 0; i < n; i++) {
+				solution[i] = random.nextInt(100) < density;
+			}
+			int[] blocks = blocks(solution);
+			if (random.nextInt(4) == 0) {
+				// Clues that may not fit the line at all
+				blocks = new int[random.nextInt(4)];
+				for (int j = 0; j < blocks.length; j++) {
+					blocks[j] = 1 + random.nextInt(n);
+				}
+			}
+			int known = random.nextInt(70);
+			for (int i = 0; i < n; i++) {
+				line[i] = DifficultyAnalyzer.UNKNOWN;
+				if (random.nextInt(100) < known) {
+					boolean filled = solution[i] != (random.nextInt(20) == 0);
+					line[i] = filled ? DifficultyAnalyzer.FILLED : DifficultyAnalyzer.EMPTY;
+				}
+			}
+			byte[] expected = bruteForce(blocks, Arrays.copyOf(line, n));
+			String message = Arrays.toString(blocks) + " " + Arrays.toString(Arrays.copyOf(line, n));
+			boolean solvable = solver.solve(blocks, line, n);
+			assertEquals(expected != null, solvable, message);
+			if (solvable) {
+				assertArrayEquals(expected, Arrays.copyOf(line, n), message);
+			}
+		}
+	}
+
+	@Test
+	void testAnalyzeAllSkipsUnreadableFiles() throws IOException {
+		File a = File.createTempFile("nonogram", ".txt");
+		File b = File.createTempFile("nonogram", ".txt");
+		File garbage = File.createTempFile("nonogram", ".txt");
+		File missing = new File(a.getPath() + ".missing");
+		for (File file : new File[] { a, b, garbage }) {
+			file.deleteOnExit();
+		}
+		NonogramMakerModel model = new NonogramMakerModel(3, 3);
+		model.setCell(1, 1, true);
+		model.saveToFile(a.getPath());
+		new NonogramMakerModel(2, 5).saveToFile(b.getPath());
+		Files.write(garbage.toPath(), "not a puzzle\n".getBytes(StandardCharsets.UTF_8));
+
+		Map<File, DifficultyAnalyzer.Report> reports = DifficultyAnalyzer
+				.analyzeAll(Arrays.asList(garbage, b, missing, a));
+		List<File> expected = new ArrayList<File>(Arrays.asList(a, b));
+		expected.sort(null);
+		assertEquals(expected, new ArrayList<File>(reports.keySet()));
+		assertEquals(9, reports.get(a).getSettledCells());
+		assertEquals(10, reports.get(b).getSettledCells());
+	}
+
+	/**
+	 * Settles a line by trying every way of filling it, or returns null if no
+	 * filling has the blocks and agrees with the known cells.
+	 */
+	private static byte[] bruteForce(int[] blocks, byte[] line) {
+		int n = line.length;
+		byte[] settled = null;
+		boolean[] cells = new boolean[n];
+		for (int mask = 0; mask < 1 << n; mask++) {
+			boolean consistent = true;
+			for (int i = 0; i < n; i++) {
+				cells[i] = (mask >> i & 1) != 0;
+				if (line[i] != DifficultyAnalyzer.UNKNOWN && cells[i] != (line[i] == DifficultyAnalyzer.FILLED)) {
+					consistent = false;
+				}
+			}
+			if (!consistent || !Arrays.equals(blocks, blocks(cells))) {
+				continue;
+			}
+			if (settled == null) {
+				settled = new byte[n];
+				for (int i = 0; i < n; i++) {
+					settled[i] = cells[i] ? DifficultyAnalyzer.FILLED : DifficultyAnalyzer.EMPTY;
+				}
+			} else {
+				for (int i = 0; i < n; i++) {
+					if (settled[i] != (cells[i] ? DifficultyAnalyzer.FILLED : DifficultyAnalyzer.EMPTY)) {
+						settled[i] = DifficultyAnalyzer.UNKNOWN;
+					}
+				}
+			}
+		}
+		return settled;
+	}
+
+	private static int[] blocks(boolean[] cells) {
+		List<Integer> clues = NonogramMakerModel.project(cells);
+		if (clues.size() == 1 && clues.get(0) == 0) {
+			return new int[0];
+		}
+		int[] blocks = new int[clues.size()];
+		for (int i = 0; i < blocks.length; i++) {
+			blocks[i] = clues.get(i);
+		}
+		return blocks;
+	}
+}
@@ -0,0 +1,108 @@
+package hellofx.test;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.fail;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+
+import org.junit.jupiter.api.Test;
+
+import hellofx.models.ImageImporter;
+import hellofx.models.ImageImporter.Mode;
+import hellofx.models.NonogramMakerModel;
+
+class ImageImporterTest {
+
+	@Test
+	void testDownsampleImageTypes() {
+		int[] types = { BufferedImage.TYPE_BYTE_GRAY, BufferedImage.TYPE_3BYTE_BGR, BufferedImage.TYPE_4BYTE_ABGR,
+				BufferedImage.TYPE_INT_RGB, BufferedImage.TYPE_INT_ARGB, BufferedImage.TYPE_USHORT_GRAY };
+		for (int type : types) {
+			BufferedImage image = new BufferedImage(8, 4, type);
+			Graphics2D g = image.createGraphics();
+			g.setColor(Color.WHITE);
+			g.fillRect(0, 0, 8, 4);
+			g.setColor(Color.BLACK);
+			g.fillRect(0, 0, 4, 4);
+			g.fillRect(4, 0, 2, 4);
+			g.dispose();
+			assertArrayEquals(new double[] { 0, 0.5 }, ImageImporter.downsample(image, 1, 2), 1e-6);
+			// A sub-image shares the pixel buffer of the whole image
+			assertArrayEquals(new double[] { 0.5 }, ImageImporter.downsample(image.getSubimage(4, 0, 4, 4), 1, 1),
+					1e-6);
+		}
+	}
+
+	@Test
+	void testTransparentPixelsAreWhite() {
+		BufferedImage image = new BufferedImage(2, 1, BufferedImage.TYPE_INT_ARGB);
+		image.setRGB(0, 0, 0x00000000);
+		image.setRGB(1, 0, 0xff000000);
+		assertArrayEquals(new double[] { 1, 0 }, ImageImporter.downsample(image, 1, 2), 1e-6);
+	}
+
+	@Test
+	void testUpsampleUsesNearestPixel() {
+		BufferedImage image = new BufferedImage(2, 1, BufferedImage.TYPE_BYTE_GRAY);
+		image.getRaster().setSample(0, 0, 0, 0);
+		image.getRaster().setSample(1, 0, 0, 255);
+		assertArrayEquals(new double[] { 0, 0, 1, 1, 0, 0, 1, 1 }, ImageImporter.downsample(image, 2, 4), 1e-6);
+	}
+
+	@Test
+	void testThreshold() {
+		BufferedImage image = new BufferedImage(8, 1, BufferedImage.TYPE_BYTE_GRAY);
+		for (int x = 0; x < 8; x++) {
+			image.getRaster().setSample(x, 0, 0, x * 255 / 7);
+		}
+		NonogramMakerModel model = new ImageImporter(Mode.THRESHOLD, 0.5).importImage(image, 1, 8);
+		for (int c = 0; c < 8; c++) {
+			assertEquals(c < 4, model.getCell(0, c));
+		}
+		try {
+			new ImageImporter(Mode.THRESHOLD, 1.5);
+			fail();
+		} catch (IllegalArgumentException e) {
+		}
+	}
+
+	@Test
+	void testDithering() {
+		BufferedImage gray = uniform(128);
+		// Exactly half of every 4x4 Bayer block lies below mid gray
+		assertEquals(32, filled(new ImageImporter(Mode.ORDERED_DITHER, 0.5).importImage(gray, 8, 8)));
+		int diffused = filled(new ImageImporter(Mode.FLOYD_STEINBERG, 0.5).importImage(gray, 8, 8));
+		assertTrue(diffused >= 28 && diffused <= 36, diffused + " cells filled");
+
+		for (Mode mode : Mode.values()) {
+			ImageImporter importer = new ImageImporter(mode, 0.5);
+			assertEquals(64, filled(importer.importImage(uniform(0), 8, 8)), mode.toString());
+			assertEquals(0, filled(importer.importImage(uniform(255), 8, 8)), mode.toString());
+		}
+	}
+
+	private static BufferedImage uniform(int gray) {
+		BufferedImage image = new BufferedImage(16, 16, BufferedImage.TYPE_INT_RGB);
+		Graphics2D g = image.createGraphics();
+		g.setColor(new Color(gray, gray, gray));
+		g.fillRect(0, 0, 16, 16);
+		g.dispose();
+		return image;
+	}
+
+	private static int filled(NonogramMakerModel model) {
+		int count = 0;
+		for (int r = 0; r < model.getNumRows(); r++) {
+			for (int c = 0; c < model.getNumCols(); c++) {
+				if (model.getCell(r, c)) {
+					count++;
+				}
+			}
+		}
+		return count;
+	}
+}
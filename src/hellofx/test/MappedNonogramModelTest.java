@@ -0,0 +1,114 @@
+package hellofx.test;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.fail;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import hellofx.models.MappedNonogramModel;
+import hellofx.models.NonogramMakerModel;
+
+class MappedNonogramModelTest {
+
+	@Test
+	void testGetSetCell() throws IOException {
+		File file = tempFile(".ngmm");
+		try (MappedNonogramModel model = MappedNonogramModel.create(file, 5, 130)) {
+			assertEquals(5, model.getNumRows());
+			assertEquals(130, model.getNumCols());
+			assertEquals(3, model.getRowWords());
+			assertFalse(model.getCell(4, 129));
+			model.setCell(4, 129, true);
+			model.setCell(0, 63, true);
+			model.setCell(0, 64, true);
+			model.setCell(0, 64, false);
+			assertTrue(model.getCell(4, 129));
+			assertTrue(model.getCell(0, 63));
+			assertFalse(model.getCell(0, 64));
+			try {
+				model.getCell(0, 130);
+				fail();
+			} catch (IndexOutOfBoundsException e) {
+			}
+		}
+	}
+
+	@Test
+	void testMatchesModel() throws IOException {
+		NonogramMakerModel expected = generate(70, 150, new Random(31));
+		File file = tempFile(".ngmm");
+		try (MappedNonogramModel model = MappedNonogramModel.create(file, 70, 150)) {
+			for (int r = 0; r < 70; r++) {
+				for (int c = 0; c < 150; c++) {
+					model.setCell(r, c, expected.getCell(r, c));
+				}
+			}
+			assertEquals(expected.getContentHash(), model.getContentHash());
+			for (int r = 0; r < 70; r++) {
+				assertEquals(expected.projectRow(r), model.projectRow(r));
+			}
+			for (int c = 0; c < 150; c++) {
+				assertEquals(expected.projectCol(c), model.projectCol(c));
+			}
+		}
+	}
+
+	@Test
+	void testSaveRoundTrip() throws IOException {
+		NonogramMakerModel expected = generate(40, 90, new Random(13));
+		File text = tempFile(".txt");
+		expected.saveToFile(text.getPath());
+		File mapped = tempFile(".ngmm");
+		try (MappedNonogramModel model = MappedNonogramModel.fromTextFile(text, mapped)) {
+			model.setCell(3, 7, !model.getCell(3, 7));
+			expected.setCell(3, 7, !expected.getCell(3, 7));
+		}
+
+		// The grid and its hash survive closing and reopening the mapped file
+		try (MappedNonogramModel model = MappedNonogramModel.open(mapped)) {
+			assertEquals(expected.getContentHash(), model.getContentHash());
+			for (String suffix : new String[] { ".txt", ".rle", ".txt.gz" }) {
+				File saved = tempFile(suffix);
+				File reference = tempFile(suffix);
+				model.saveToFile(saved.getPath());
+				expected.saveToFile(reference.getPath());
+				assertArrayEquals(Files.readAllBytes(reference.toPath()), Files.readAllBytes(saved.toPath()));
+				assertEquals(expected, new NonogramMakerModel(saved));
+			}
+		}
+	}
+
+	@Test
+	void testFromEmptyFile() throws IOException {
+		File text = tempFile(".txt");
+		try {
+			MappedNonogramModel.fromTextFile(text, tempFile(".ngmm"));
+			fail();
+		} catch (IllegalArgumentException e) {
+		}
+	}
+
+	private static NonogramMakerModel generate(int numRows, int numCols, Random random) {
+		NonogramMakerModel model = new NonogramMakerModel(numRows, numCols);
+		for (int r = 0; r < numRows; r++) {
+			for (int c = 0; c < numCols; c++) {
+				model.setCell(r, c, random.nextBoolean());
+			}
+		}
+		return model;
+	}
+
+	private static File tempFile(String suffix) throws IOException {
+		File file = File.createTempFile("nonogram", suffix);
+		file.deleteOnExit();
+		return file;
+	}
+}
@@ -0,0 +1,67 @@
+package hellofx.test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import org.junit.jupiter.api.Test;
+
+import hellofx.metrics.Histogram;
+import hellofx.metrics.Metrics;
+
+class MetricsTest {
+
+	@Test
+	void testEmptyHistogram() {
+		Histogram histogram = new Histogram();
+		assertEquals(0, histogram.getCount());
+		assertEquals(0, histogram.getMin());
+		assertEquals(0, histogram.getMax());
+		assertEquals(0, histogram.getPercentile(50));
+	}
+
+	@Test
+	void testBucketBoundaries() {
+		Histogram histogram = new Histogram();
+		// Buckets hold 0, 1, 2-3, 4-7 and 8-15
+		for (long value : new long[] { 0, 1, 2, 3, 4, 7, 8 }) {
+			histogram.record(value);
+		}
+		histogram.record(-5);
+		assertEquals(8, histogram.getCount());
+		assertEquals(25, histogram.getSum());
+		assertEquals(0, histogram.getMin());
+		assertEquals(8, histogram.getMax());
+		assertEquals(0, histogram.getPercentile(0));
+		assertEquals(0, histogram.getPercentile(25));
+		assertEquals(1, histogram.getPercentile(37.5));
+		assertEquals(3, histogram.getPercentile(50));
+		assertEquals(3, histogram.getPercentile(62.5));
+		assertEquals(7, histogram.getPercentile(75));
+		assertEquals(7, histogram.getPercentile(87.5));
+		// The bound of the last bucket is capped at the largest value
+		assertEquals(8, histogram.getPercentile(100));
+
+		Histogram large = new Histogram();
+		large.record(Long.MAX_VALUE);
+		assertEquals(Long.MAX_VALUE, large.getPercentile(99));
+	}
+
+	@Test
+	void testJsonSnapshot() {
+		Metrics.reset();
+		Metrics.counter("b.count").add(2);
+		Metrics.counter("a\"quoted").increment();
+		Metrics.histogram("h.nanos").record(5);
+		String expected = "{\n"
+				+ "  \"counters\": {\n"
+				+ "    \"a\\\"quoted\": 1,\n"
+				+ "    \"b.count\": 2\n"
+				+ "  },\n"
+				+ "  \"histograms\": {\n"
+				+ "    \"h.nanos\": {\"count\": 1, \"sum\": 5, \"min\": 5, \"max\": 5, \"p50\": 5, \"p90\": 5, \"p99\": 5}\n"
+				+ "  }\n"
+				+ "}\n";
+		assertEquals(expected, Metrics.toJson());
+		Metrics.reset();
+		assertEquals("{\n  \"counters\": {\n  },\n  \"histograms\": {\n  }\n}\n", Metrics.toJson());
+	}
+}
@@ -0,0 +1,99 @@
+package hellofx.test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+
+import org.junit.jupiter.api.Test;
+
+import hellofx.models.ModelCache;
+import hellofx.models.NonogramMakerModel;
+
+class ModelCacheTest {
+
+	/** The estimated weight of a cached 10x10 model. */
+	private static final long WEIGHT = 128 + 100;
+
+	@Test
+	void testHitReturnsPrivateCopy() throws IOException {
+		File file = save(new NonogramMakerModel(10, 10));
+		ModelCache cache = new ModelCache(1024);
+		NonogramMakerModel first = cache.open(file);
+		first.setCell(0, 0, true);
+
+		NonogramMakerModel second = cache.open(file);
+		assertEquals(1, cache.getMisses());
+		assertEquals(1, cache.getHits());
+		assertFalse(second.getCell(0, 0));
+		assertEquals(WEIGHT, cache.getUsedBytes());
+	}
+
+	@Test
+	void testChangedFileIsReread() throws IOException {
+		NonogramMakerModel model = new NonogramMakerModel(10, 10);
+		File file = save(model);
+		ModelCache cache = new ModelCache(1024);
+		cache.open(file);
+
+		model.setCell(5, 5, true);
+		model.saveToFile(file.getPath());
+		assertTrue(file.setLastModified(file.lastModified() + 2000));
+		assertNull(cache.get(file));
+		assertEquals(0, cache.size());
+		assertTrue(cache.open(file).getCell(5, 5));
+		assertEquals(3, cache.getMisses());
+	}
+
+	@Test
+	void testLeastRecentlyUsedIsEvicted() throws IOException {
+		File a = save(new NonogramMakerModel(10, 10));
+		File b = save(new NonogramMakerModel(10, 10));
+		File c = save(new NonogramMakerModel(10, 10));
+		ModelCache cache = new ModelCache(2 * WEIGHT);
+		cache.open(a);
+		cache.open(b);
+		cache.open(a);
+		cache.open(c);
+
+		assertEquals(2, cache.size());
+		assertEquals(2 * WEIGHT, cache.getUsedBytes());
+		assertNotNull(cache.get(a));
+		assertNotNull(cache.get(c));
+		assertNull(cache.get(b));
+	}
+
+	@Test
+	void testOversizedModelIsNotCached() throws IOException {
+		File file = save(new NonogramMakerModel(10, 10));
+		ModelCache cache = new ModelCache(WEIGHT - 1);
+		assertNotNull(cache.open(file));
+		assertEquals(0, cache.size());
+		assertEquals(0, cache.getUsedBytes());
+	}
+
+	@Test
+	void testLoadAfterMiss() throws IOException {
+		File file = save(new NonogramMakerModel(10, 10));
+		ModelCache cache = new ModelCache(1024);
+		assertNull(cache.get(file));
+		NonogramMakerModel loaded = cache.load(file);
+		loaded.setCell(0, 0, true);
+		assertEquals(1, cache.getMisses());
+
+		assertFalse(cache.get(file).getCell(0, 0));
+		assertEquals(1, cache.getMisses());
+		assertEquals(1, cache.getHits());
+	}
+
+	private static File save(NonogramMakerModel model) throws IOException {
+		File file = File.createTempFile("nonogram", ".txt");
+		file.deleteOnExit();
+		model.saveToFile(file.getPath());
+		return file;
+	}
+}
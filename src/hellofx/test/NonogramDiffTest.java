@@ -0,0 +1,136 @@
+package hellofx.test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.fail;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import hellofx.models.NonogramDiff;
+import hellofx.models.NonogramMakerModel;
+
+class NonogramDiffTest {
+
+	@Test
+	void testIdenticalGrids() {
+		NonogramMakerModel base = random(5, 70, 1);
+		NonogramDiff diff = new NonogramDiff(base, new NonogramMakerModel(base));
+		assertTrue(diff.isEmpty());
+		assertEquals(0, diff.getChangedCells());
+		assertEquals(Collections.emptyList(), diff.getChangedRows());
+		assertEquals(Collections.emptyList(), diff.getChangedCols());
+		assertEquals("0 cells changed in 0 rows and 0 columns; clues changed in 0 rows and 0 columns",
+				diff.toString());
+	}
+
+	@Test
+	void testChangedCellsMatchXor() {
+		// Columns on both sides of the 64-bit word boundary
+		NonogramMakerModel base = random(9, 130, 2);
+		NonogramMakerModel other = random(9, 130, 3);
+		NonogramDiff diff = new NonogramDiff(base, other);
+		long changed = 0;
+		for (int r = 0; r < 9; r++) {
+			for (int c = 0; c < 130; c++) {
+				boolean expected = base.getCell(r, c) != other.getCell(r, c);
+				assertEquals(expected, diff.isChanged(r, c), r + "," + c);
+				if (expected) {
+					changed++;
+				}
+			}
+		}
+		assertEquals(changed, diff.getChangedCells());
+		assertFalse(diff.isEmpty());
+	}
+
+	@Test
+	void testChangedLinesAndClues() {
+		NonogramMakerModel base = new NonogramMakerModel(4, 100);
+		base.setCell(1, 10, true);
+		NonogramMakerModel other = new NonogramMakerModel(base);
+		// Moving the group changes the row but keeps its clues
+		other.setCell(1, 10, false);
+		other.setCell(1, 11, true);
+		other.setCell(3, 99, true);
+		NonogramDiff diff = new NonogramDiff(base, other);
+		assertEquals(3, diff.getChangedCells());
+		assertEquals(Arrays.asList(1, 3), diff.getChangedRows());
+		assertEquals(Arrays.asList(10, 11, 99), diff.getChangedCols());
+		assertEquals(Arrays.asList(3), diff.getChangedRowClues());
+		assertEquals(Arrays.asList(10, 11, 99), diff.getChangedColClues());
+		assertEquals("3 cells changed in 2 rows and 3 columns; clues changed in 1 rows and 3 columns",
+				diff.toString());
+	}
+
+	@Test
+	void testSizeMismatch() {
+		try {
+			new NonogramDiff(new NonogramMakerModel(2, 3), new NonogramMakerModel(3, 2));
+			fail();
+		} catch (IllegalArgumentException e) {
+		}
+		try {
+			NonogramDiff.merge(new NonogramMakerModel(2, 3), new NonogramMakerModel(2, 3),
+					new NonogramMakerModel(2, 4));
+			fail();
+		} catch (IllegalArgumentException e) {
+		}
+	}
+
+	@Test
+	void testMergeTakesBothSides() {
+		NonogramMakerModel base = random(6, 80, 4);
+		NonogramMakerModel ours = new NonogramMakerModel(base);
+		NonogramMakerModel theirs = new NonogramMakerModel(base);
+		ours.setCell(0, 1, !base.getCell(0, 1));
+		theirs.setCell(5, 70, !base.getCell(5, 70));
+		// Both sides edit row 2, in different cells
+		ours.setCell(2, 3, !base.getCell(2, 3));
+		theirs.setCell(2, 65, !base.getCell(2, 65));
+
+		NonogramDiff.Merge merge = NonogramDiff.merge(base, ours, theirs);
+		NonogramMakerModel merged = merge.getModel();
+		for (int r = 0; r < 6; r++) {
+			for (int c = 0; c < 80; c++) {
+				boolean expected = ours.getCell(r, c) != base.getCell(r, c) ? ours.getCell(r, c)
+						: theirs.getCell(r, c);
+				assertEquals(expected, merged.getCell(r, c), r + "," + c);
+			}
+		}
+		assertEquals(Arrays.asList(2), merge.getOverlappingRows());
+		// The inputs are left untouched
+		assertEquals(base.getCell(5, 70), ours.getCell(5, 70));
+	}
+
+	@Test
+	void testMergeSameCellChangedOnBothSides() {
+		NonogramMakerModel base = new NonogramMakerModel(3, 3);
+		NonogramMakerModel ours = new NonogramMakerModel(base);
+		NonogramMakerModel theirs = new NonogramMakerModel(base);
+		ours.setCell(1, 1, true);
+		theirs.setCell(1, 1, true);
+		theirs.setCell(2, 0, true);
+
+		NonogramDiff.Merge merge = NonogramDiff.merge(base, ours, theirs);
+		assertTrue(merge.getModel().getCell(1, 1));
+		assertTrue(merge.getModel().getCell(2, 0));
+		assertEquals(Arrays.asList(1), merge.getOverlappingRows());
+		assertEquals(2, new NonogramDiff(base, merge.getModel()).getChangedCells());
+	}
+
+	private static NonogramMakerModel random(int numRows, int numCols, long seed) {
+		Random random = new Random(seed);
+		NonogramMakerModel model = new NonogramMakerModel(numRows, numCols);
+		for (int r = 0; r < numRows; r++) {
+			for (int c = 0; c < numCols; c++) {
+				model.setCell(r, c, random.nextBoolean());
+			}
+		}
+		return model;
+	}
+}
@@ -0,0 +1,186 @@
+package hellofx.test;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import hellofx.models.NonogramMakerModel;
+
+/**
+ * Scale tests for NonogramMakerModel. Grids up to thousands of cells per side
+ * are generated, round-tripped through each file format, and parsed, projected
+ * and saved in time that grows linearly with the grid: quadrupling the number
+ * of cells may not take much more than four times as long, where quadratic work
+ * such as repeated string building takes sixteen times as long. Where the JVM
+ * can count allocations, they are checked against per-cell budgets too, summed
+ * over all threads so work done by the fork/join clue projection is counted.
+ */
+class NonogramMakerModelScaleTest {
+
+	private static final int[][] SIZES = { { 1, 1 }, { 7, 300 }, { 250, 40 }, { 3, 4000 }, { 4000, 3 }, { 300, 500 } };
+	private static final String[] SUFFIXES = { ".txt", ".rle", ".txt.gz", ".rle.gz" };
+
+	private static final int LARGE_ROWS = 2000;
+	private static final int LARGE_COLS = 2000;
+
+	private static final int SCALING_ROWS = 1000;
+	private static final int SCALING_COLS = 250;
+	private static final int SCALING_RUNS = 5;
+	private static final double MAX_SCALING_RATIO = 8;
+	private static final long PARSE_BYTES_PER_CELL = 64;
+	private static final long PROJECT_BYTES_PER_CELL = 64;
+	private static final long SAVE_BYTES_PER_CELL = 64;
+
+	@Test
+	void testRoundTripParity() throws IOException {
+		Random random = new Random(41);
+		for (int[] size : SIZES) {
+			NonogramMakerModel model = generate(size[0], size[1], random);
+			String text = model.toString();
+			for (String suffix : SUFFIXES) {
+				File file = File.createTempFile("nonogram", suffix);
+				file.deleteOnExit();
+				model.saveToFile(file.getPath());
+				byte[] saved = Files.readAllBytes(file.toPath());
+
+				NonogramMakerModel loaded = new NonogramMakerModel(file);
+				assertEquals(model, loaded);
+				assertEquals(text, loaded.toString());
+
+				loaded.saveToFile(file.getPath());
+				assertArrayEquals(saved, Files.readAllBytes(file.toPath()));
+
+				if (suffix.equals(".txt")) {
+					String content = new String(saved, StandardCharsets.UTF_8);
+					assertTrue(content.startsWith(text + "\n"));
+				}
+			}
+		}
+	}
+
+	@Test
+	void testLinearScaling() throws IOException {
+		File file = File.createTempFile("nonogram", ".txt");
+		file.deleteOnExit();
+		// Warm up so both sizes measure compiled code. Only the rows grow, so work
+		// that copies everything written so far for each row grows sixteenfold
+		time(generate(SCALING_ROWS, SCALING_COLS, new Random(1)), file);
+		long[] small = time(generate(SCALING_ROWS, SCALING_COLS, new Random(2)), file);
+		long[] large = time(generate(4 * SCALING_ROWS, SCALING_COLS, new Random(3)), file);
+		String[] names = { "save", "parse", "project" };
+		for (int i = 0; i < names.length; i++) {
+			double ratio = (double) large[i] / Math.max(1, small[i]);
+			assertTrue(ratio <= MAX_SCALING_RATIO,
+					names[i] + " took " + ratio + " times as long for four times the cells");
+		}
+	}
+
+	@Test
+	void testAllocationBudgets() throws IOException {
+		java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+		assumeTrue(bean instanceof com.sun.management.ThreadMXBean
+				&& ((com.sun.management.ThreadMXBean) bean).isThreadAllocatedMemorySupported()
+				&& ((com.sun.management.ThreadMXBean) bean).isThreadAllocatedMemoryEnabled(),
+				"thread allocation counting is not available");
+		File file = File.createTempFile("nonogram", ".txt");
+		file.deleteOnExit();
+		// Warm up on a smaller grid so the budgets measure compiled code
+		measure(generate(LARGE_ROWS / 4, LARGE_COLS / 4, new Random(1)), file);
+		measure(generate(LARGE_ROWS, LARGE_COLS, new Random(2)), file);
+	}
+
+	/**
+	 * Returns the fastest of several runs of saving, parsing and projecting a
+	 * grid, so that a single slow run on a busy machine does not skew the ratio.
+	 */
+	private static long[] time(NonogramMakerModel model, File file) throws IOException {
+		long[] best = { Long.MAX_VALUE, Long.MAX_VALUE, Long.MAX_VALUE };
+		for (int run = 0; run < SCALING_RUNS; run++) {
+			long start = System.nanoTime();
+			model.saveToFile(file.getPath());
+			long saved = System.nanoTime();
+			NonogramMakerModel loaded = new NonogramMakerModel(file);
+			long parsed = System.nanoTime();
+			project(loaded);
+			long projected = System.nanoTime();
+			best[0] = Math.min(best[0], saved - start);
+			best[1] = Math.min(best[1], parsed - saved);
+			best[2] = Math.min(best[2], projected - parsed);
+		}
+		return best;
+	}
+
+	private static void project(NonogramMakerModel model) {
+		for (int r = 0; r < model.getNumRows(); r++) {
+			model.projectRow(r);
+		}
+		for (int c = 0; c < model.getNumCols(); c++) {
+			model.projectCol(c);
+		}
+	}
+
+	private static void measure(NonogramMakerModel model, File file) throws IOException {
+		long cells = (long) model.getNumRows() * model.getNumCols();
+
+		Map<Long, Long> start = allocatedBytes();
+		model.saveToFile(file.getPath());
+		long save = allocatedSince(start);
+
+		start = allocatedBytes();
+		NonogramMakerModel loaded = new NonogramMakerModel(file);
+		long parse = allocatedSince(start);
+
+		start = allocatedBytes();
+		project(loaded);
+		long project = allocatedSince(start);
+
+		assertTrue(save <= SAVE_BYTES_PER_CELL * cells, "save allocated " + save + " bytes");
+		assertTrue(parse <= PARSE_BYTES_PER_CELL * cells, "parse allocated " + parse + " bytes");
+		assertTrue(project <= PROJECT_BYTES_PER_CELL * cells, "project allocated " + project + " bytes");
+	}
+
+	private static NonogramMakerModel generate(int numRows, int numCols, Random random) {
+		NonogramMakerModel model = new NonogramMakerModel(numRows, numCols);
+		for (int r = 0; r < numRows; r++) {
+			for (int c = 0; c < numCols; c++) {
+				model.setCell(r, c, random.nextBoolean());
+			}
+		}
+		return model;
+	}
+
+	private static long allocatedSince(Map<Long, Long> start) {
+		long bytes = 0;
+		for (Map.Entry<Long, Long> thread : allocatedBytes().entrySet()) {
+			bytes += thread.getValue() - start.getOrDefault(thread.getKey(), 0L);
+		}
+		return bytes;
+	}
+
+	private static Map<Long, Long> allocatedBytes() {
+		com.sun.management.ThreadMXBean bean = (com.sun.management.ThreadMXBean) ManagementFactory
+				.getThreadMXBean();
+		long[] ids = bean.getAllThreadIds();
+		long[] bytes = bean.getThreadAllocatedBytes(ids);
+		Map<Long, Long> allocated = new HashMap<Long, Long>();
+		for (int i = 0; i < ids.length; i++) {
+			// Threads that ended report -1
+			if (bytes[i] >= 0) {
+				allocated.put(ids[i], bytes[i]);
+			}
+		}
+		return allocated;
+	}
+}
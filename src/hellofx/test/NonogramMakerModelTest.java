@@ -2,12 +2,14 @@ package hellofx.test;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
 import static org.junit.jupiter.api.Assertions.fail;
 
 import java.io.File;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
 import java.util.List;
 
 import org.junit.jupiter.api.Test;
@@ -135,4 +137,90 @@ class NonogramMakerModelTest {
 				"101";
 		assertEquals(expected, model.toString());
 	}
+
+	@Test
+	void testContentHash() {
+		NonogramMakerModel model = new NonogramMakerModel(3, 3);
+		long emptyHash = model.getContentHash();
+		assertNotEquals(emptyHash, new NonogramMakerModel(1, 9).getContentHash());
+
+		model.setCell(0, 2, true);
+		model.setCell(1, 1, true);
+		long hash = model.getContentHash();
+		assertNotEquals(emptyHash, hash);
+
+		model.setCell(1, 1, true);
+		assertEquals(hash, model.getContentHash());
+		model.setCell(2, 0, true);
+		model.setCell(2, 0, false);
+		assertEquals(hash, model.getContentHash());
+
+		NonogramMakerModel other = new NonogramMakerModel(3, 3);
+		other.setCell(1, 1, true);
+		other.setCell(0, 2, true);
+		assertEquals(model, other);
+		assertEquals(model.hashCode(), other.hashCode());
+		assertEquals(model, new NonogramMakerModel(model));
+
+		other.setCell(0, 0, true);
+		assertNotEquals(model, other);
+
+		model.setCell(1, 1, false);
+		model.setCell(0, 2, false);
+		assertEquals(emptyHash, model.getContentHash());
+	}
+
+	@Test
+	void testSaveContentHash() throws IOException {
+		NonogramMakerModel model = new NonogramMakerModel("src/hellofx/test/test1.txt");
+		File file = File.createTempFile("nonogram", ".txt");
+		file.deleteOnExit();
+		model.saveToFile(file.getPath());
+
+		assertEquals(model.getContentHash(), NonogramMakerModel.readContentHash(file));
+		NonogramMakerModel reopened = new NonogramMakerModel(file);
+		assertEquals(model.getContentHash(), reopened.getContentHash());
+		assertEquals(model, reopened);
+
+		// The hash line is still found after a trailing line break
+		Files.write(file.toPath(), "\n".getBytes(), StandardOpenOption.APPEND);
+		assertEquals(model.getContentHash(), NonogramMakerModel.readContentHash(file));
+		assertEquals(null, NonogramMakerModel.readContentHash(new File("src/hellofx/test/test1.txt")));
+	}
+
+	@Test
+	void testSaveCompressed() throws IOException {
+		NonogramMakerModel model = new NonogramMakerModel("src/hellofx/test/test1.txt");
+		for (String suffix : new String[] { ".rle", ".txt.gz", ".rle.gz" }) {
+			File file = File.createTempFile("nonogram", suffix);
+			file.deleteOnExit();
+			model.saveToFile(file.getPath());
+
+			assertEquals(model.getContentHash(), NonogramMakerModel.readContentHash(file));
+			NonogramMakerModel reopened = new NonogramMakerModel(file);
+			assertEquals(model, reopened);
+			assertEquals(model.toString(), reopened.toString());
+		}
+	}
+
+	@Test
+	void testSaveRle() throws IOException {
+		NonogramMakerModel model = new NonogramMakerModel(3, 5);
+		model.setCell(0, 1, true);
+		model.setCell(0, 2, true);
+		model.setCell(0, 4, true);
+		for (int c = 0; c < 5; c++) {
+			model.setCell(2, c, true);
+		}
+		File file = File.createTempFile("nonogram", ".rle");
+		file.deleteOnExit();
+		model.saveToFile(file.getPath());
+
+		List<String> lines = Files.readAllLines(file.toPath());
+		assertEquals("RLE 3 5", lines.get(0));
+		assertEquals("1 2 1 1", lines.get(9));
+		assertEquals("", lines.get(10));
+		assertEquals("0 5", lines.get(11));
+		assertEquals(model, new NonogramMakerModel(file));
+	}
 }
@@ -0,0 +1,102 @@
+package hellofx.test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.io.StringWriter;
+
+import javax.imageio.ImageIO;
+
+import org.junit.jupiter.api.Test;
+
+import hellofx.models.NonogramMakerModel;
+import hellofx.models.PuzzleExporter;
+
+class PuzzleExporterTest {
+
+	private static final int CELL = 10;
+	private static final int BLACK = 0xff000000;
+	private static final int WHITE = 0xffffffff;
+
+	@Test
+	void testPng() throws IOException {
+		NonogramMakerModel model = new NonogramMakerModel(3, 4);
+		model.setCell(0, 0, true);
+		model.setCell(0, 1, true);
+		model.setCell(0, 3, true);
+		model.setCell(2, 2, true);
+		BufferedImage image = export(model);
+
+		// Two row clues wide and one column clue high, plus the closing grid line
+		assertEquals((2 + 4) * CELL + 1, image.getWidth());
+		assertEquals((1 + 3) * CELL + 1, image.getHeight());
+		assertCells(model, image, 2 * CELL, CELL);
+	}
+
+	@Test
+	void testPngAcrossBands() throws IOException {
+		// Wide enough that bands are shorter than a tile, and tall enough for
+		// several bands
+		NonogramMakerModel model = new NonogramMakerModel(8, 7000);
+		for (int r = 0; r < 8; r++) {
+			for (int c = r; c < 7000; c += 9) {
+				model.setCell(r, c, true);
+			}
+		}
+		BufferedImage image = export(model);
+		int gridX = model.getClues().getMaxRowClues() * CELL;
+		int gridY = model.getClues().getMaxColClues() * CELL;
+		assertEquals(gridX + 7000 * CELL + 1, image.getWidth());
+		assertEquals(gridY + 8 * CELL + 1, image.getHeight());
+		assertCells(model, image, gridX, gridY);
+	}
+
+	@Test
+	void testSvg() throws IOException {
+		NonogramMakerModel model = new NonogramMakerModel(2, 4);
+		model.setCell(0, 0, true);
+		model.setCell(0, 1, true);
+		model.setCell(0, 3, true);
+		StringWriter writer = new StringWriter();
+		new PuzzleExporter(CELL, 100).writeSvg(model, writer);
+		String svg = writer.toString();
+
+		assertTrue(svg.startsWith("<?xml"));
+		assertTrue(svg.contains("width=\"0.61in\" height=\"0.31in\" viewBox=\"0 0 61 31\""));
+		// Consecutive filled cells are merged into one rectangle
+		assertTrue(svg.contains("<rect x=\"20\" y=\"10\" width=\"20\" height=\"10\"/>"));
+		assertTrue(svg.contains("<rect x=\"50\" y=\"10\" width=\"10\" height=\"10\"/>"));
+		assertEquals(2, count(svg, "height=\"10\"/>"));
+		// Two row clues, one for the empty row, and a clue per column
+		assertEquals(2 + 1 + 4, count(svg, "<text "));
+		assertEquals(3 + 5, count(svg, "<line "));
+		assertTrue(svg.endsWith("</svg>\n"));
+	}
+
+	private static BufferedImage export(NonogramMakerModel model) throws IOException {
+		File file = File.createTempFile("nonogram", ".png");
+		file.deleteOnExit();
+		new PuzzleExporter(CELL, 300).export(model, file);
+		return ImageIO.read(file);
+	}
+
+	private static void assertCells(NonogramMakerModel model, BufferedImage image, int gridX, int gridY) {
+		for (int r = 0; r < model.getNumRows(); r++) {
+			for (int c = 0; c < model.getNumCols(); c++) {
+				int pixel = image.getRGB(gridX + c * CELL + CELL / 2, gridY + r * CELL + CELL / 2);
+				assertEquals(model.getCell(r, c) ? BLACK : WHITE, pixel, "cell " + r + ", " + c);
+			}
+		}
+	}
+
+	private static int count(String text, String part) {
+		int count = 0;
+		for (int i = text.indexOf(part); i >= 0; i = text.indexOf(part, i + 1)) {
+			count++;
+		}
+		return count;
+	}
+}
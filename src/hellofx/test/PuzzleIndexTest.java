@@ -0,0 +1,205 @@
+package hellofx.test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import hellofx.models.NonogramMakerModel;
+import hellofx.models.PuzzleIndex;
+import hellofx.models.PuzzleIndex.Entry;
+
+class PuzzleIndexTest {
+
+	@Test
+	void testSaveLoadRoundTrip() throws IOException {
+		File dir = directory();
+		// A thumbnail that is scaled down, and one whose cells do not fill the
+		// last hex digit
+		save(random(20, 37, 1), new File(dir, "large.txt"));
+		save(random(3, 5, 2), new File(dir, "small.txt"));
+		PuzzleIndex index = new PuzzleIndex(dir);
+		assertTrue(index.refresh());
+		index.save();
+
+		PuzzleIndex loaded = new PuzzleIndex(dir);
+		loaded.load();
+		List<Entry> expected = index.getEntries();
+		List<Entry> actual = loaded.getEntries();
+		assertEquals(2, actual.size());
+		for (int i = 0; i < expected.size(); i++) {
+			assertEntryEquals(expected.get(i), actual.get(i));
+		}
+		Entry large = actual.get(0);
+		assertEquals(PuzzleIndex.THUMBNAIL_SIZE, large.getThumbRows());
+		assertEquals(PuzzleIndex.THUMBNAIL_SIZE, large.getThumbCols());
+		assertEquals(3, actual.get(1).getThumbRows());
+		assertEquals(5, actual.get(1).getThumbCols());
+		// Nothing changed since the index was saved
+		assertFalse(loaded.refresh());
+	}
+
+	@Test
+	void testRefreshOnlyReparsesChangedFiles() throws IOException {
+		File dir = directory();
+		File a = new File(dir, "a.txt");
+		File b = new File(dir, "b.txt");
+		NonogramMakerModel model = new NonogramMakerModel(4, 4);
+		model.setCell(0, 0, true);
+		save(model, a);
+		save(model, b);
+		long time = a.lastModified() - 10000;
+		assertTrue(a.setLastModified(time));
+		PuzzleIndex index = new PuzzleIndex(dir);
+		assertTrue(index.refresh());
+		long hash = entry(index, a).getContentHash();
+
+		// Same modification time and length: the file is not parsed again
+		model.setCell(0, 0, false);
+		model.setCell(0, 1, true);
+		save(model, a);
+		assertTrue(a.setLastModified(time));
+		assertEquals(entry(index, a).getLength(), a.length());
+		assertFalse(index.refresh());
+		assertEquals(hash, entry(index, a).getContentHash());
+
+		// A new modification time is picked up
+		assertTrue(a.setLastModified(time + 2000));
+		assertTrue(index.refresh());
+		assertNotEquals(hash, entry(index, a).getContentHash());
+		hash = entry(index, a).getContentHash();
+
+		// So is a new length, even with the old modification time
+		model.setCell(3, 0, true);
+		model.setCell(3, 2, true);
+		save(model, a);
+		assertNotEquals(entry(index, a).getLength(), a.length());
+		assertTrue(a.setLastModified(time + 2000));
+		assertTrue(index.refresh());
+		assertNotEquals(hash, entry(index, a).getContentHash());
+		assertEquals(a.length(), entry(index, a).getLength());
+
+		assertTrue(b.delete());
+		assertTrue(index.refresh());
+		assertEquals(Arrays.asList(a.getPath()), paths(index.getEntries()));
+	}
+
+	@Test
+	void testFindDuplicates() throws IOException {
+		File dir = directory();
+		NonogramMakerModel model = random(6, 6, 3);
+		File a = save(model, new File(dir, "a.txt"));
+		File b = save(model, new File(dir, "b.rle"));
+		File c = save(model, new File(dir, "c.txt.gz"));
+		save(random(6, 6, 4), new File(dir, "d.txt"));
+		PuzzleIndex index = new PuzzleIndex(dir);
+		index.refresh();
+		assertEquals(Collections.emptyList(), new PuzzleIndex(dir).findDuplicates());
+
+		List<List<Entry>> duplicates = index.findDuplicates();
+		assertEquals(1, duplicates.size());
+		List<String> group = paths(duplicates.get(0));
+		Collections.sort(group);
+		assertEquals(Arrays.asList(a.getPath(), b.getPath(), c.getPath()), group);
+	}
+
+	@Test
+	void testWatchDropsMovedDirectory() throws Exception {
+		File dir = directory();
+		File sub = new File(dir, "sub");
+		PuzzleIndex index = new PuzzleIndex(dir);
+		index.watch(() -> {
+		});
+		try {
+			assertTrue(sub.mkdir());
+			File puzzle = save(random(4, 4, 5), new File(sub, "a.txt"));
+			waitFor(index, Arrays.asList(puzzle.getPath()));
+
+			// Moving the directory away only reports the directory itself
+			File moved = new File(directory(), "sub");
+			Files.move(sub.toPath(), moved.toPath());
+			new File(moved, "a.txt").deleteOnExit();
+			moved.deleteOnExit();
+			waitFor(index, Collections.emptyList());
+		} finally {
+			index.stopWatching();
+		}
+	}
+
+	private static void waitFor(PuzzleIndex index, List<String> expected) throws InterruptedException {
+		long deadline = System.currentTimeMillis() + 10000;
+		while (!paths(index.getEntries()).equals(expected) && System.currentTimeMillis() < deadline) {
+			Thread.sleep(20);
+		}
+		assertEquals(expected, paths(index.getEntries()));
+	}
+
+	private static void assertEntryEquals(Entry expected, Entry actual) {
+		assertEquals(expected.getPath(), actual.getPath());
+		assertEquals(expected.getLastModified(), actual.getLastModified());
+		assertEquals(expected.getLength(), actual.getLength());
+		assertEquals(expected.getNumRows(), actual.getNumRows());
+		assertEquals(expected.getNumCols(), actual.getNumCols());
+		assertEquals(expected.getDensity(), actual.getDensity());
+		assertEquals(expected.getContentHash(), actual.getContentHash());
+		assertEquals(expected.getThumbRows(), actual.getThumbRows());
+		assertEquals(expected.getThumbCols(), actual.getThumbCols());
+		for (int r = 0; r < expected.getThumbRows(); r++) {
+			for (int c = 0; c < expected.getThumbCols(); c++) {
+				assertEquals(expected.getThumbCell(r, c), actual.getThumbCell(r, c));
+			}
+		}
+	}
+
+	private static Entry entry(PuzzleIndex index, File file) {
+		for (Entry entry : index.getEntries()) {
+			if (entry.getPath().equals(file.getPath())) {
+				return entry;
+			}
+		}
+		throw new AssertionError(file + " is not indexed");
+	}
+
+	private static List<String> paths(List<Entry> entries) {
+		List<String> paths = new ArrayList<String>();
+		for (Entry entry : entries) {
+			paths.add(entry.getPath());
+		}
+		return paths;
+	}
+
+	private static File directory() throws IOException {
+		File dir = Files.createTempDirectory("nonogram").toFile();
+		dir.deleteOnExit();
+		new File(dir, PuzzleIndex.INDEX_FILE_NAME).deleteOnExit();
+		return dir;
+	}
+
+	private static File save(NonogramMakerModel model, File file) throws IOException {
+		file.deleteOnExit();
+		model.saveToFile(file.getPath());
+		return file;
+	}
+
+	private static NonogramMakerModel random(int numRows, int numCols, long seed) {
+		Random random = new Random(seed);
+		NonogramMakerModel model = new NonogramMakerModel(numRows, numCols);
+		for (int r = 0; r < numRows; r++) {
+			for (int c = 0; c < numCols; c++) {
+				model.setCell(r, c, random.nextBoolean());
+			}
+		}
+		return model;
+	}
+}
@@ -2,6 +2,8 @@ package hellofx.views;
 
 import java.util.ArrayList;
 
+import hellofx.metrics.GridBuildEvent;
+import hellofx.metrics.Metrics;
 import javafx.geometry.Pos;
 import javafx.scene.control.ToggleButton;
 import javafx.scene.layout.GridPane;
@@ -14,7 +16,10 @@ import javafx.scene.layout.Pane;
  * retrieve a specific toggle button, and retrieve the pane containing the grid.
  */
 public class CellGridView {
+    private static final String CHANGED_STYLE_CLASS = "diff-changed";
+
     private ArrayList<ToggleButton> gridButtons;
+    private ArrayList<ToggleButton> markedButtons;
     private GridPane gridPane;
     private int numRows;
     private int numCols;
@@ -31,6 +36,7 @@ public class CellGridView {
         this.numCols = numCols;
         this.numRows = numRows;
         gridButtons = new ArrayList<ToggleButton>();
+        markedButtons = new ArrayList<ToggleButton>();
         gridPane = new GridPane();
         gridPane.setAlignment(Pos.CENTER);
         initButtons(numRows, numCols, cellLength);
@@ -45,9 +51,14 @@ public class CellGridView {
      * @param cellLength the length of each cell in pixels
      */
     public void initButtons(int numRows, int numCols, int cellLength) {
+        GridBuildEvent event = new GridBuildEvent();
+        event.begin();
+        long start = System.nanoTime();
+
         this.numRows = numRows;
         this.numCols = numCols;
         gridButtons.clear();
+        markedButtons.clear();
         gridPane.getChildren().clear();
 
         for (int rowIdx = 0; rowIdx < numRows; rowIdx++) {
@@ -64,6 +75,12 @@ public class CellGridView {
                 gridPane.add(button, colIdx, rowIdx);
             }
         }
+
+        event.numRows = numRows;
+        event.numCols = numCols;
+        event.commit();
+        Metrics.recordDuration("view.initButtons", start);
+        Metrics.counter("view.buttons").add((long) numRows * numCols);
     }
 
     /**
@@ -98,6 +115,31 @@ public class CellGridView {
         return gridButtons.get(l);
     }
 
+    /**
+     * Marks the toggle button at the specified row and column as changed in a
+     * comparison with another puzzle.
+     * 
+     * @param rowIdx the row index
+     * @param colIdx the column index
+     */
+    public void markChanged(int rowIdx, int colIdx) {
+        ToggleButton button = getToggleButton(rowIdx, colIdx);
+        if (!button.getStyleClass().contains(CHANGED_STYLE_CLASS)) {
+            button.getStyleClass().add(CHANGED_STYLE_CLASS);
+            markedButtons.add(button);
+        }
+    }
+
+    /**
+     * Removes the comparison marks from all marked toggle buttons.
+     */
+    public void clearMarks() {
+        for (ToggleButton button : markedButtons) {
+            button.getStyleClass().remove(CHANGED_STYLE_CLASS);
+        }
+        markedButtons.clear();
+    }
+
     /**
      * Returns the pane containing the grid.
      * 
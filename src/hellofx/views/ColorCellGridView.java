@@ -0,0 +1,265 @@
+package hellofx.views;
+
+import java.util.List;
+
+import hellofx.models.ColorClue;
+import hellofx.models.ColorNonogramModel;
+import javafx.geometry.VPos;
+import javafx.scene.canvas.Canvas;
+import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.control.Menu;
+import javafx.scene.control.MenuBar;
+import javafx.scene.control.MenuItem;
+import javafx.scene.control.ToggleButton;
+import javafx.scene.control.ToggleGroup;
+import javafx.scene.layout.BorderPane;
+import javafx.scene.layout.HBox;
+import javafx.scene.layout.Pane;
+import javafx.scene.paint.Color;
+import javafx.scene.text.TextAlignment;
+
+/**
+ * The ColorCellGridView class represents the editor of a multi-color nonogram.
+ * The grid and its colored clues are drawn on a single canvas rather than with
+ * one button per cell, and a row of swatches above the grid selects the color
+ * that clicks paint with.
+ */
+public class ColorCellGridView {
+    private static final double CLUE_WIDTH_FACTOR = 1.2;
+
+    private BorderPane borderPane;
+    private MenuBar menuBar;
+    private MenuItem menuItemSave;
+    private HBox paletteBar;
+    private ToggleGroup paletteGroup;
+    private Canvas canvas;
+    private int cellLength;
+    private int maxRowClues;
+    private int maxColClues;
+    private double clueWidth;
+    private double clueHeight;
+
+    /**
+     * Constructs a ColorCellGridView with the specified cell length.
+     *
+     * @param cellLength the length of each cell in pixels
+     */
+    public ColorCellGridView(int cellLength) {
+        this.cellLength = cellLength;
+        menuItemSave = new MenuItem("_Save");
+        Menu menuFile = new Menu("File");
+        menuFile.getItems().add(menuItemSave);
+        menuBar = new MenuBar(menuFile);
+
+        paletteGroup = new ToggleGroup();
+        paletteBar = new HBox();
+        canvas = new Canvas();
+        borderPane = new BorderPane();
+        borderPane.setTop(new BorderPane(paletteBar, menuBar, null, null, null));
+        borderPane.setCenter(canvas);
+    }
+
+    /**
+     * Replaces the swatches with one per palette color, selecting the first color
+     * after the background.
+     *
+     * @param palette the colors as #rrggbb strings
+     */
+    public void setPalette(List<String> palette) {
+        paletteBar.getChildren().clear();
+        paletteGroup.getToggles().clear();
+        for (int i = 0; i < palette.size(); i++) {
+            ToggleButton swatch = new ToggleButton();
+            swatch.setUserData(i);
+            swatch.setToggleGroup(paletteGroup);
+            swatch.setPrefSize(cellLength, cellLength);
+            swatch.setStyle("-fx-background-color: gray, " + palette.get(i) + ";");
+            paletteBar.getChildren().add(swatch);
+        }
+        paletteGroup.selectToggle(paletteGroup.getToggles().get(1));
+    }
+
+    /**
+     * Returns the palette index of the selected swatch.
+     *
+     * @return the selected color, or 0 if no swatch is selected
+     */
+    public int getSelectedColor() {
+        if (paletteGroup.getSelectedToggle() == null) {
+            return 0;
+        }
+        return (Integer) paletteGroup.getSelectedToggle().getUserData();
+    }
+
+    /**
+     * Resizes the canvas for the specified model and draws it entirely.
+     *
+     * @param model the model to draw
+     */
+    public void draw(ColorNonogramModel model) {
+        maxRowClues = 1;
+        for (int r = 0; r < model.getNumRows(); r++) {
+            maxRowClues = Math.max(maxRowClues, model.projectRow(r).size());
+        }
+        maxColClues = 1;
+        for (int c = 0; c < model.getNumCols(); c++) {
+            maxColClues = Math.max(maxColClues, model.projectCol(c).size());
+        }
+        clueWidth = maxRowClues * cellLength * CLUE_WIDTH_FACTOR;
+        clueHeight = maxColClues * cellLength;
+        canvas.setWidth(clueWidth + model.getNumCols() * cellLength);
+        canvas.setHeight(clueHeight + model.getNumRows() * cellLength);
+
+        GraphicsContext gc = canvas.getGraphicsContext2D();
+        gc.setFill(Color.WHITE);
+        gc.fillRect(0, 0, canvas.getWidth(), canvas.getHeight());
+        for (int r = 0; r < model.getNumRows(); r++) {
+            drawRowClues(model, r);
+            for (int c = 0; c < model.getNumCols(); c++) {
+                drawCell(model, r, c);
+            }
+        }
+        for (int c = 0; c < model.getNumCols(); c++) {
+            drawColClues(model, c);
+        }
+    }
+
+    /**
+     * Redraws one cell and the clues of its row and column. The rest of the
+     * canvas is left as it is, unless the edit gave the row or column more clues
+     * than the margins hold, in which case the canvas is resized and redrawn.
+     *
+     * @param model  the model to draw
+     * @param rowIdx the row of the cell
+     * @param colIdx the column of the cell
+     */
+    public void drawEdit(ColorNonogramModel model, int rowIdx, int colIdx) {
+        if (model.projectRow(rowIdx).size() > maxRowClues || model.projectCol(colIdx).size() > maxColClues) {
+            draw(model);
+            return;
+        }
+        drawCell(model, rowIdx, colIdx);
+        drawRowClues(model, rowIdx);
+        drawColClues(model, colIdx);
+    }
+
+    /**
+     * Draws one cell in its palette color with a gray outline.
+     *
+     * @param model  the model to draw
+     * @param rowIdx the row of the cell
+     * @param colIdx the column of the cell
+     */
+    private void drawCell(ColorNonogramModel model, int rowIdx, int colIdx) {
+        GraphicsContext gc = canvas.getGraphicsContext2D();
+        double x = clueWidth + colIdx * cellLength;
+        double y = clueHeight + rowIdx * cellLength;
+        gc.setFill(Color.GRAY);
+        gc.fillRect(x, y, cellLength, cellLength);
+        gc.setFill(Color.web(model.getPalette().get(model.getCell(rowIdx, colIdx))));
+        gc.fillRect(x + 1, y + 1, cellLength - 1, cellLength - 1);
+    }
+
+    /**
+     * Draws the clues of a row right-aligned to the left of the grid, each in its
+     * own color.
+     *
+     * @param model  the model to draw
+     * @param rowIdx the row whose clues are drawn
+     */
+    private void drawRowClues(ColorNonogramModel model, int rowIdx) {
+        GraphicsContext gc = canvas.getGraphicsContext2D();
+        double y = clueHeight + rowIdx * cellLength;
+        gc.setFill(Color.WHITE);
+        gc.fillRect(0, y, clueWidth, cellLength);
+        List<ColorClue> clues = model.projectRow(rowIdx);
+        double step = cellLength * CLUE_WIDTH_FACTOR;
+        for (int i = 0; i < clues.size(); i++) {
+            double x = clueWidth - (clues.size() - i) * step;
+            drawClue(gc, model, clues.get(i), x + step / 2, y + cellLength / 2.0);
+        }
+    }
+
+    /**
+     * Draws the clues of a column bottom-aligned above the grid, each in its own
+     * color.
+     *
+     * @param model  the model to draw
+     * @param colIdx the column whose clues are drawn
+     */
+    private void drawColClues(ColorNonogramModel model, int colIdx) {
+        GraphicsContext gc = canvas.getGraphicsContext2D();
+        double x = clueWidth + colIdx * cellLength;
+        gc.setFill(Color.WHITE);
+        gc.fillRect(x, 0, cellLength, clueHeight);
+        List<ColorClue> clues = model.projectCol(colIdx);
+        for (int i = 0; i < clues.size(); i++) {
+            double y = clueHeight - (clues.size() - i) * cellLength;
+            drawClue(gc, model, clues.get(i), x + cellLength / 2.0, y + cellLength / 2.0);
+        }
+    }
+
+    /**
+     * Draws the length of a clue centered on a point, in the clue's color. The
+     * clue of an empty line is drawn in black.
+     *
+     * @param gc    the graphics context of the canvas
+     * @param model the model holding the palette
+     * @param clue  the clue to draw
+     * @param x     the horizontal center of the clue
+     * @param y     the vertical center of the clue
+     */
+    private void drawClue(GraphicsContext gc, ColorNonogramModel model, ColorClue clue, double x, double y) {
+        gc.setFill(clue.getLength() == 0 ? Color.BLACK : Color.web(model.getPalette().get(clue.getColor())));
+        gc.setTextAlign(TextAlignment.CENTER);
+        gc.setTextBaseline(VPos.CENTER);
+        gc.fillText(Integer.toString(clue.getLength()), x, y);
+    }
+
+    /**
+     * Returns the row under a point of the canvas.
+     *
+     * @param y the vertical position on the canvas
+     * @return the row index, or -1 if the point is above the grid
+     */
+    public int getRowAt(double y) {
+        return y < clueHeight ? -1 : (int) ((y - clueHeight) / cellLength);
+    }
+
+    /**
+     * Returns the column under a point of the canvas.
+     *
+     * @param x the horizontal position on the canvas
+     * @return the column index, or -1 if the point is left of the grid
+     */
+    public int getColAt(double x) {
+        return x < clueWidth ? -1 : (int) ((x - clueWidth) / cellLength);
+    }
+
+    /**
+     * Returns the canvas the grid is drawn on.
+     *
+     * @return the canvas
+     */
+    public Canvas getCanvas() {
+        return canvas;
+    }
+
+    /**
+     * Returns the Save menu item.
+     *
+     * @return the Save menu item
+     */
+    public MenuItem getSaveMenuItem() {
+        return menuItemSave;
+    }
+
+    /**
+     * Returns the pane containing the editor.
+     *
+     * @return the pane
+     */
+    public Pane getPane() {
+        return borderPane;
+    }
+}
@@ -0,0 +1,209 @@
+package hellofx.views;
+
+import hellofx.models.MappedNonogramModel;
+import javafx.geometry.Orientation;
+import javafx.scene.canvas.Canvas;
+import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.control.Label;
+import javafx.scene.control.Menu;
+import javafx.scene.control.MenuBar;
+import javafx.scene.control.MenuItem;
+import javafx.scene.control.ScrollBar;
+import javafx.scene.layout.BorderPane;
+import javafx.scene.layout.Pane;
+import javafx.scene.layout.VBox;
+import javafx.scene.paint.Color;
+
+/**
+ * The LargePuzzleView class represents the editor of a puzzle too large for a
+ * grid of buttons. Only a viewport of the grid is drawn, on a canvas, and
+ * scroll bars move the viewport over the puzzle, so drawing costs the same no
+ * matter how large the puzzle is. A status line shows the clues of the line
+ * last edited.
+ */
+public class LargePuzzleView {
+    private static final int VIEWPORT_CELLS = 40;
+
+    private BorderPane borderPane;
+    private MenuItem menuItemSave;
+    private Canvas canvas;
+    private ScrollBar rowScrollBar;
+    private ScrollBar colScrollBar;
+    private Label status;
+    private int cellLength;
+    private int viewRows;
+    private int viewCols;
+
+    /**
+     * Constructs a LargePuzzleView for a puzzle of the specified size.
+     *
+     * @param numRows    the number of rows in the puzzle
+     * @param numCols    the number of columns in the puzzle
+     * @param cellLength the length of each cell in pixels
+     */
+    public LargePuzzleView(int numRows, int numCols, int cellLength) {
+        this.cellLength = cellLength;
+        viewRows = Math.min(numRows, VIEWPORT_CELLS);
+        viewCols = Math.min(numCols, VIEWPORT_CELLS);
+        canvas = new Canvas(viewCols * cellLength, viewRows * cellLength);
+
+        rowScrollBar = new ScrollBar();
+        rowScrollBar.setOrientation(Orientation.VERTICAL);
+        initScrollBar(rowScrollBar, numRows - viewRows, viewRows);
+        colScrollBar = new ScrollBar();
+        initScrollBar(colScrollBar, numCols - viewCols, viewCols);
+
+        menuItemSave = new MenuItem("_Save");
+        Menu menuFile = new Menu("File");
+        menuFile.getItems().add(menuItemSave);
+        status = new Label();
+
+        borderPane = new BorderPane();
+        borderPane.setTop(new MenuBar(menuFile));
+        borderPane.setCenter(canvas);
+        borderPane.setRight(rowScrollBar);
+        borderPane.setBottom(new VBox(colScrollBar, status));
+    }
+
+    /**
+     * Sets the range and increments of a scroll bar, which scrolls by whole
+     * cells.
+     *
+     * @param scrollBar the scroll bar
+     * @param max       the largest first visible line
+     * @param visible   the number of visible lines
+     */
+    private static void initScrollBar(ScrollBar scrollBar, int max, int visible) {
+        scrollBar.setMin(0);
+        scrollBar.setMax(max);
+        scrollBar.setVisibleAmount(max * (double) visible / (max + visible));
+        scrollBar.setUnitIncrement(1);
+        scrollBar.setBlockIncrement(visible);
+        scrollBar.setDisable(max == 0);
+    }
+
+    /**
+     * Draws the cells in the viewport.
+     *
+     * @param model the model to draw
+     */
+    public void draw(MappedNonogramModel model) {
+        for (int r = 0; r < viewRows; r++) {
+            for (int c = 0; c < viewCols; c++) {
+                drawCell(model, getFirstRow() + r, getFirstCol() + c);
+            }
+        }
+    }
+
+    /**
+     * Draws one cell, if it is in the viewport.
+     *
+     * @param model  the model to draw
+     * @param rowIdx the row of the cell
+     * @param colIdx the column of the cell
+     */
+    public void drawCell(MappedNonogramModel model, int rowIdx, int colIdx) {
+        int r = rowIdx - getFirstRow();
+        int c = colIdx - getFirstCol();
+        if (r < 0 || r >= viewRows || c < 0 || c >= viewCols) {
+            return;
+        }
+        GraphicsContext gc = canvas.getGraphicsContext2D();
+        gc.setFill(Color.GRAY);
+        gc.fillRect(c * cellLength, r * cellLength, cellLength, cellLength);
+        gc.setFill(model.getCell(rowIdx, colIdx) ? Color.BLACK : Color.WHITE);
+        gc.fillRect(c * cellLength + 1, r * cellLength + 1, cellLength - 1, cellLength - 1);
+    }
+
+    /**
+     * Returns the first row in the viewport.
+     *
+     * @return the row index
+     */
+    public int getFirstRow() {
+        return (int) Math.round(rowScrollBar.getValue());
+    }
+
+    /**
+     * Returns the first column in the viewport.
+     *
+     * @return the column index
+     */
+    public int getFirstCol() {
+        return (int) Math.round(colScrollBar.getValue());
+    }
+
+    /**
+     * Returns the row under a point of the canvas.
+     *
+     * @param y the vertical position on the canvas
+     * @return the row index
+     */
+    public int getRowAt(double y) {
+        return getFirstRow() + (int) (y / cellLength);
+    }
+
+    /**
+     * Returns the column under a point of the canvas.
+     *
+     * @param x the horizontal position on the canvas
+     * @return the column index
+     */
+    public int getColAt(double x) {
+        return getFirstCol() + (int) (x / cellLength);
+    }
+
+    /**
+     * Shows a line of text below the grid.
+     *
+     * @param text the text to show
+     */
+    public void setStatus(String text) {
+        status.setText(text);
+    }
+
+    /**
+     * Returns the canvas the viewport is drawn on.
+     *
+     * @return the canvas
+     */
+    public Canvas getCanvas() {
+        return canvas;
+    }
+
+    /**
+     * Returns the scroll bar moving the viewport over the rows.
+     *
+     * @return the vertical scroll bar
+     */
+    public ScrollBar getRowScrollBar() {
+        return rowScrollBar;
+    }
+
+    /**
+     * Returns the scroll bar moving the viewport over the columns.
+     *
+     * @return the horizontal scroll bar
+     */
+    public ScrollBar getColScrollBar() {
+        return colScrollBar;
+    }
+
+    /**
+     * Returns the Save menu item.
+     *
+     * @return the Save menu item
+     */
+    public MenuItem getSaveMenuItem() {
+        return menuItemSave;
+    }
+
+    /**
+     * Returns the pane containing the editor.
+     *
+     * @return the pane
+     */
+    public Pane getPane() {
+        return borderPane;
+    }
+}
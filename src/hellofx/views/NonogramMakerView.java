@@ -5,12 +5,15 @@ import java.util.HashMap;
 import javafx.application.Platform;
 import javafx.event.ActionEvent;
 import javafx.event.EventHandler;
+import javafx.geometry.Pos;
+import javafx.scene.control.CheckMenuItem;
 import javafx.scene.control.Menu;
 import javafx.scene.control.MenuBar;
 import javafx.scene.control.MenuItem;
 import javafx.scene.control.ToggleButton;
 import javafx.scene.layout.BorderPane;
 import javafx.scene.layout.Pane;
+import javafx.scene.layout.StackPane;
 
 /**
  * The NonogramMakerView class represents the view component of the Nonogram
@@ -21,11 +24,17 @@ public class NonogramMakerView {
     private BorderPane borderPane;
     private MenuBar menuBar;
     private CellGridView cellGridView;
+    private PerformanceOverlayView performanceOverlay;
     private HashMap<String, MenuItem> MenuItemsMap;
 
     public String MENU_ITEM_OPEN = "MENU_ITEM_OPEN";
+    public String MENU_ITEM_LIBRARY = "MENU_ITEM_LIBRARY";
+    public String MENU_ITEM_IMPORT = "MENU_ITEM_IMPORT";
     public String MENU_ITEM_SAVE = "MENU_ITEM_SAVE";
+    public String MENU_ITEM_EXPORT = "MENU_ITEM_EXPORT";
+    public String MENU_ITEM_COMPARE = "MENU_ITEM_COMPARE";
     public String MENU_ITEM_EXIT = "MENU_ITEM_EXIT";
+    public String MENU_ITEM_OVERLAY = "MENU_ITEM_OVERLAY";
 
     /**
      * Constructs a NonogramMakerView object with the specified number of rows,
@@ -37,29 +46,44 @@ public class NonogramMakerView {
      */
     public NonogramMakerView(int numRows, int numCols, int cellLength) {
         cellGridView = new CellGridView(numRows, numCols, cellLength);
+        performanceOverlay = new PerformanceOverlayView(cellGridView.getPane());
         borderPane = new BorderPane();
         initMenuBar();
         borderPane.setTop(menuBar);
-        borderPane.setCenter(cellGridView.getPane());
+
+        StackPane center = new StackPane(cellGridView.getPane(), performanceOverlay.getNode());
+        StackPane.setAlignment(performanceOverlay.getNode(), Pos.TOP_RIGHT);
+        borderPane.setCenter(center);
     }
 
     /**
      * Initializes the menu bar with File menu and its associated menu items.
-     * The menu items include Open, Save, and Exit.
+     * The menu items include Open, Library, Import Image, Save, Export Image,
+     * Compare With, and Exit.
      * The Exit menu item is set to close the application when clicked.
+     * A View menu holds the toggle for the performance overlay.
      */
     private void initMenuBar() {
 
         Menu menuFile = new Menu("File");
         MenuItem menuItemOpen = new MenuItem("_Open");
+        MenuItem menuItemLibrary = new MenuItem("_Library...");
+        MenuItem menuItemImport = new MenuItem("_Import Image...");
         MenuItem menuItemSave = new MenuItem("_Save");
+        MenuItem menuItemExport = new MenuItem("E_xport Image...");
+        MenuItem menuItemCompare = new MenuItem("_Compare With...");
         MenuItem menuItemExit = new MenuItem("_Exit");
 
-        menuFile.getItems().addAll(menuItemOpen, menuItemSave, menuItemExit);
+        menuFile.getItems().addAll(menuItemOpen, menuItemLibrary, menuItemImport, menuItemSave, menuItemExport,
+                menuItemCompare, menuItemExit);
 
         MenuItemsMap = new HashMap<String, MenuItem>();
         MenuItemsMap.put(MENU_ITEM_OPEN, menuItemOpen);
+        MenuItemsMap.put(MENU_ITEM_LIBRARY, menuItemLibrary);
+        MenuItemsMap.put(MENU_ITEM_IMPORT, menuItemImport);
         MenuItemsMap.put(MENU_ITEM_SAVE, menuItemSave);
+        MenuItemsMap.put(MENU_ITEM_EXPORT, menuItemExport);
+        MenuItemsMap.put(MENU_ITEM_COMPARE, menuItemCompare);
         MenuItemsMap.put(MENU_ITEM_EXIT, menuItemExit);
 
         menuItemExit.setOnAction(new EventHandler<ActionEvent>() {
@@ -69,8 +93,20 @@ public class NonogramMakerView {
             }
         });
 
+        Menu menuView = new Menu("_View");
+        CheckMenuItem menuItemOverlay = new CheckMenuItem("_Performance Overlay");
+        menuView.getItems().add(menuItemOverlay);
+        MenuItemsMap.put(MENU_ITEM_OVERLAY, menuItemOverlay);
+
+        menuItemOverlay.setOnAction(new EventHandler<ActionEvent>() {
+            @Override
+            public void handle(ActionEvent event) {
+                performanceOverlay.setVisible(menuItemOverlay.isSelected());
+            }
+        });
+
         menuBar = new MenuBar();
-        menuBar.getMenus().add(menuFile);
+        menuBar.getMenus().addAll(menuFile, menuView);
     };
 
     /**
@@ -103,6 +139,7 @@ public class NonogramMakerView {
      */
     public void initButtons(int numRows, int numCols, int cellLength) {
         cellGridView.initButtons(numRows, numCols, cellLength);
+        performanceOverlay.invalidateNodeCount();
     }
 
     /**
@@ -133,4 +170,22 @@ public class NonogramMakerView {
     public ToggleButton getToggleButton(int rowIdx, int colIdx) {
         return cellGridView.getToggleButton(rowIdx, colIdx);
     }
+
+    /**
+     * Marks the cell at the specified row and column as changed in a comparison
+     * with another puzzle.
+     * 
+     * @param rowIdx the row index of the cell
+     * @param colIdx the column index of the cell
+     */
+    public void markChanged(int rowIdx, int colIdx) {
+        cellGridView.markChanged(rowIdx, colIdx);
+    }
+
+    /**
+     * Removes all comparison marks from the grid.
+     */
+    public void clearMarks() {
+        cellGridView.clearMarks();
+    }
 }
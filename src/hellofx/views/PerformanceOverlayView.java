@@ -0,0 +1,201 @@
+package hellofx.views;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import hellofx.metrics.Metrics;
+import javafx.application.Platform;
+import javafx.event.ActionEvent;
+import javafx.event.EventHandler;
+import javafx.scene.Node;
+import javafx.scene.Parent;
+import javafx.scene.Scene;
+import javafx.scene.control.Label;
+import javafx.scene.layout.Region;
+
+/**
+ * The PerformanceOverlayView class shows live rendering statistics over the
+ * editor: pulses per second, the average and worst CSS and layout time of the
+ * pulses in the last interval, the number of nodes in the scene, heap usage,
+ * and the latency from the last cell edit to the next layout pass. Pulses are
+ * counted by the layout pulse listeners, so an idle scene shows no pulses, and
+ * the text is refreshed twice a second from a background ticker, which does not
+ * request pulses of its own. The nodes are only counted after the grid is
+ * rebuilt, so the overlay is cheap enough to leave on.
+ */
+public class PerformanceOverlayView {
+    private static final long REFRESH_MILLIS = 500;
+    private static final long BYTES_PER_MEGABYTE = 1024 * 1024;
+
+    private Label label;
+    private Node editSource;
+    private Scene scene;
+    private ScheduledExecutorService ticker;
+    private Runnable preLayoutListener;
+    private Runnable postLayoutListener;
+    private EventHandler<ActionEvent> editFilter;
+
+    private long pulses;
+    private long totalLayoutNanos;
+    private long maxLayoutNanos;
+    private long windowStart;
+    private boolean nodeCountStale = true;
+    private int nodeCount;
+    private long layoutStart;
+    private long editStart;
+    private long lastEditNanos = -1;
+
+    /**
+     * Constructs a hidden PerformanceOverlayView that watches the specified node
+     * for cell edits.
+     *
+     * @param editSource the node whose action events count as edits
+     */
+    public PerformanceOverlayView(Node editSource) {
+        this.editSource = editSource;
+        label = new Label();
+        label.getStyleClass().add("performance-overlay");
+        label.setMouseTransparent(true);
+        label.setMaxSize(Region.USE_PREF_SIZE, Region.USE_PREF_SIZE);
+        label.setVisible(false);
+
+        preLayoutListener = () -> layoutStart = System.nanoTime();
+        postLayoutListener = this::onLayoutDone;
+        editFilter = event -> editStart = System.nanoTime();
+    }
+
+    /**
+     * Shows or hides the overlay, attaching or detaching its listeners.
+     *
+     * @param visible whether the overlay should be shown
+     */
+    public void setVisible(boolean visible) {
+        if (visible == label.isVisible()) {
+            return;
+        }
+        label.setVisible(visible);
+        if (visible) {
+            scene = label.getScene();
+            if (scene != null) {
+                scene.addPreLayoutPulseListener(preLayoutListener);
+                scene.addPostLayoutPulseListener(postLayoutListener);
+            }
+            editSource.addEventFilter(ActionEvent.ACTION, editFilter);
+            resetWindow(System.nanoTime());
+            ticker = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "performance-overlay");
+                thread.setDaemon(true);
+                return thread;
+            });
+            ticker.scheduleAtFixedRate(() -> Platform.runLater(this::refresh), REFRESH_MILLIS, REFRESH_MILLIS,
+                    TimeUnit.MILLISECONDS);
+        } else {
+            ticker.shutdownNow();
+            ticker = null;
+            editSource.removeEventFilter(ActionEvent.ACTION, editFilter);
+            if (scene != null) {
+                scene.removePreLayoutPulseListener(preLayoutListener);
+                scene.removePostLayoutPulseListener(postLayoutListener);
+                scene = null;
+            }
+        }
+    }
+
+    /**
+     * Returns whether the overlay is shown.
+     *
+     * @return true if the overlay is shown
+     */
+    public boolean isVisible() {
+        return label.isVisible();
+    }
+
+    /**
+     * Marks the node count as out of date, so the nodes are counted again at the
+     * next refresh. Called after the grid is rebuilt.
+     */
+    public void invalidateNodeCount() {
+        nodeCountStale = true;
+    }
+
+    /**
+     * Refreshes the text with the statistics of the pulses since the last
+     * refresh.
+     */
+    private void refresh() {
+        if (!label.isVisible()) {
+            return;
+        }
+        long now = System.nanoTime();
+        if (nodeCountStale && label.getScene() != null) {
+            nodeCount = countNodes(label.getScene().getRoot());
+            nodeCountStale = false;
+        }
+        Runtime runtime = Runtime.getRuntime();
+        long usedHeap = (runtime.totalMemory() - runtime.freeMemory()) / BYTES_PER_MEGABYTE;
+        long maxHeap = runtime.maxMemory() / BYTES_PER_MEGABYTE;
+
+        double averageLayoutNanos = pulses == 0 ? 0 : (double) totalLayoutNanos / pulses;
+        label.setText(String.format("%.0f pulses/s%ncss+layout avg %.2f ms, max %.2f ms%n%d nodes%n"
+                + "heap %d / %d MB%nedit %s", pulses * 1e9 / (now - windowStart), averageLayoutNanos / 1e6,
+                maxLayoutNanos / 1e6, nodeCount, usedHeap, maxHeap,
+                lastEditNanos < 0 ? "-" : String.format("%.2f ms", lastEditNanos / 1e6)));
+        resetWindow(now);
+    }
+
+    /**
+     * Starts a new measurement interval.
+     *
+     * @param now the start of the interval in nanoseconds
+     */
+    private void resetWindow(long now) {
+        pulses = 0;
+        totalLayoutNanos = 0;
+        maxLayoutNanos = 0;
+        windowStart = now;
+    }
+
+    /**
+     * Counts the pulse that just ran and records its CSS and layout time, and the
+     * edit latency if an edit is waiting for its layout pass.
+     */
+    private void onLayoutDone() {
+        long now = System.nanoTime();
+        long layoutNanos = now - layoutStart;
+        pulses++;
+        totalLayoutNanos += layoutNanos;
+        maxLayoutNanos = Math.max(maxLayoutNanos, layoutNanos);
+        Metrics.histogram("fx.layout.nanos").record(layoutNanos);
+        if (editStart != 0) {
+            lastEditNanos = now - editStart;
+            Metrics.histogram("fx.edit.nanos").record(lastEditNanos);
+            editStart = 0;
+        }
+    }
+
+    /**
+     * Counts the nodes in a scene graph.
+     *
+     * @param node the root of the scene graph
+     * @return the number of nodes
+     */
+    private static int countNodes(Node node) {
+        int count = 1;
+        if (node instanceof Parent) {
+            for (Node child : ((Parent) node).getChildrenUnmodifiable()) {
+                count += countNodes(child);
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Returns the overlay node.
+     *
+     * @return the overlay label
+     */
+    public Node getNode() {
+        return label;
+    }
+}
@@ -0,0 +1,122 @@
+package hellofx.views;
+
+import java.util.List;
+
+import hellofx.models.PuzzleIndex;
+import javafx.scene.canvas.Canvas;
+import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.control.Label;
+import javafx.scene.control.ListCell;
+import javafx.scene.control.ListView;
+import javafx.scene.layout.BorderPane;
+import javafx.scene.layout.Pane;
+import javafx.scene.paint.Color;
+
+/**
+ * The PuzzleLibraryView class represents a browsable list of indexed puzzles.
+ * Each puzzle is shown with its thumbnail, dimensions and density.
+ */
+public class PuzzleLibraryView {
+    private static final int THUMBNAIL_PIXELS = 48;
+
+    private BorderPane borderPane;
+    private ListView<PuzzleIndex.Entry> listView;
+    private Label statusLabel;
+
+    /**
+     * Constructs an empty PuzzleLibraryView.
+     */
+    public PuzzleLibraryView() {
+        listView = new ListView<PuzzleIndex.Entry>();
+        listView.setPrefSize(360, 480);
+        listView.setCellFactory(list -> new EntryCell());
+        statusLabel = new Label();
+        borderPane = new BorderPane();
+        borderPane.setCenter(listView);
+        borderPane.setBottom(statusLabel);
+    }
+
+    /**
+     * Replaces the entries shown in the list, keeping the current selection if it
+     * is still present.
+     *
+     * @param entries the entries to show
+     */
+    public void setEntries(List<PuzzleIndex.Entry> entries) {
+        PuzzleIndex.Entry selected = listView.getSelectionModel().getSelectedItem();
+        listView.getItems().setAll(entries);
+        if (selected != null) {
+            for (PuzzleIndex.Entry entry : entries) {
+                if (entry.getPath().equals(selected.getPath())) {
+                    listView.getSelectionModel().select(entry);
+                    break;
+                }
+            }
+        }
+        statusLabel.setText(entries.size() + " puzzles");
+    }
+
+    /**
+     * Sets the text of the status line below the list.
+     *
+     * @param status the status text
+     */
+    public void setStatus(String status) {
+        statusLabel.setText(status);
+    }
+
+    /**
+     * Returns the list view showing the entries.
+     *
+     * @return the list view
+     */
+    public ListView<PuzzleIndex.Entry> getListView() {
+        return listView;
+    }
+
+    /**
+     * Returns the pane containing the library.
+     *
+     * @return the pane
+     */
+    public Pane getPane() {
+        return borderPane;
+    }
+
+    /**
+     * The EntryCell class renders a puzzle entry with its thumbnail.
+     */
+    private static class EntryCell extends ListCell<PuzzleIndex.Entry> {
+        private Canvas thumbnail = new Canvas(THUMBNAIL_PIXELS, THUMBNAIL_PIXELS);
+
+        /**
+         * Updates the cell to show the specified entry.
+         *
+         * @param entry the entry to show
+         * @param empty whether the cell is empty
+         */
+        @Override
+        protected void updateItem(PuzzleIndex.Entry entry, boolean empty) {
+            super.updateItem(entry, empty);
+            if (empty || entry == null) {
+                setText(null);
+                setGraphic(null);
+                return;
+            }
+            GraphicsContext gc = thumbnail.getGraphicsContext2D();
+            gc.setFill(Color.WHITE);
+            gc.fillRect(0, 0, THUMBNAIL_PIXELS, THUMBNAIL_PIXELS);
+            double cellSize = (double) THUMBNAIL_PIXELS / Math.max(entry.getThumbRows(), entry.getThumbCols());
+            gc.setFill(Color.BLACK);
+            for (int r = 0; r < entry.getThumbRows(); r++) {
+                for (int c = 0; c < entry.getThumbCols(); c++) {
+                    if (entry.getThumbCell(r, c)) {
+                        gc.fillRect(c * cellSize, r * cellSize, cellSize, cellSize);
+                    }
+                }
+            }
+            setText(entry.toString());
+            setGraphic(thumbnail);
+        }
+    }
+}